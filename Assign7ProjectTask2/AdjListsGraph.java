@@ -10,13 +10,28 @@
 
 import java.util.*;
 import java.io.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class AdjListsGraph<T> {
     
     private final int NOT_FOUND = -1;
+
+    /** Number of vertices whose lists a single task of addArcs fills. */
+    private static final int VERTICES_PER_TASK = 1024;
     
     /** Use a HashMap to make this implementation very fast! */
     private HashMap<T, LinkedList<T>> arcs;
+
+    /**
+     * Optional index of incoming arcs: maps each vertex to the vertices that
+     * point to it, each once even if there are parallel arcs, in the order of
+     * their first arc. It is null unless the predecessor index is enabled.
+     */
+    private HashMap<T, LinkedList<T>> reverseArcs;
+
+    /** Snapshot handed out by freeze(); dropped whenever the graph changes. */
+    private CsrGraph<T> snapshot;
     
     /**
      * Initiailze an empty graph.
@@ -24,6 +39,46 @@ public class AdjListsGraph<T> {
     public AdjListsGraph() {
         this.arcs = new HashMap<T, LinkedList<T>>();
     }
+
+    /**
+     * Initialize an empty graph, optionally keeping an index of incoming arcs
+     * so that getPredecessors and getInDegree do not scan the whole graph.
+     */
+    public AdjListsGraph(boolean indexPredecessors) {
+        this();
+        if (indexPredecessors) {
+            enablePredecessorIndex();
+        }
+    }
+
+    /**
+     * Builds the index of incoming arcs from the current arcs. From now on
+     * addArc, removeArc and removeVertex keep it up to date.
+     * Does nothing if the index is already enabled.
+     */
+    public void enablePredecessorIndex() {
+        if (reverseArcs != null) {
+            return;
+        }
+        reverseArcs = new HashMap<T, LinkedList<T>>();
+        for (T v : arcs.keySet()) {
+            reverseArcs.put(v, new LinkedList<T>());
+        }
+        for (T v : arcs.keySet()) {
+            for (T successor : arcs.get(v)) {
+                LinkedList<T> incoming = reverseArcs.get(successor);
+                // the parallel arcs from v are met before any other vertex is
+                if (incoming != null && !v.equals(incoming.peekLast())) {
+                    incoming.add(v);
+                }
+            }
+        }
+    }
+
+    /** Returns true if this graph keeps an index of incoming arcs. */
+    public boolean hasPredecessorIndex() {
+        return reverseArcs != null;
+    }
     
     /** Returns true if this graph is empty, false otherwise. */
     public boolean isEmpty() {
@@ -70,18 +125,50 @@ public class AdjListsGraph<T> {
      */
     public void addVertex (T vertex) {
         if (!arcs.containsKey(vertex)) { 
+            snapshot = null;
             arcs.put(vertex, new LinkedList<T>()); 
+            if (reverseArcs != null) {
+                reverseArcs.put(vertex, new LinkedList<T>());
+            }
         }
     }
     
     /**
-     * Removes a single vertex with the given value from this graph.
+     * Removes a single vertex with the given value from this graph, together
+     * with all the arcs from and to it, whether or not the index of incoming
+     * arcs is enabled. Without the index, every successor list is scanned for
+     * arcs to the vertex.
      * If the vertex does not exist, it does not change the graph.
      */
     public void removeVertex (T vertex) {
         // int index = vertices.indexOf(vertex);
-        arcs.remove(vertex);
+        LinkedList<T> successors = arcs.remove(vertex);
         // this.removeVertex(index);
+        if (successors == null) {
+            return;
+        }
+        snapshot = null;
+        if (reverseArcs == null) {
+            // drop the arcs that pointed to the removed vertex
+            for (LinkedList<T> l : arcs.values()) {
+                l.removeIf(v -> v.equals(vertex));
+            }
+            return;
+        }
+        // drop the arcs that pointed to the removed vertex...
+        for (T predecessor : reverseArcs.remove(vertex)) {
+            LinkedList<T> l = arcs.get(predecessor);
+            if (l != null) {
+                l.removeIf(v -> v.equals(vertex));
+            }
+        }
+        // ...and the removed vertex from its successors' incoming lists
+        for (T successor : successors) {
+            LinkedList<T> incoming = reverseArcs.get(successor);
+            if (incoming != null) {
+                incoming.remove(vertex);
+            }
+        }
     }
     
     /**
@@ -98,17 +185,108 @@ public class AdjListsGraph<T> {
         // if source and destination exist, add the arc. do nothing otherwise
       // if ((sourceIndex != -1) && (destinationIndex != -1)){
         LinkedList<T> l = arcs.get(source);
+        // a parallel arc does not make source a predecessor a second time
+        boolean parallel = reverseArcs != null && l.contains(destination);
         l.add(destination);
+        snapshot = null;
       // }
+      if (reverseArcs != null && !parallel) {
+        reverseArcs.get(destination).add(source);
+      }
     }
     
+    /**
+     * Inserts all the arcs of a CSR adjacency at once, with the same result as calling
+     * addArc for each arc in the order of the edges they came from. vertices.get(v) is
+     * the vertex with id v; successors are grouped by source in offsets and targets, and
+     * predecessors by target in inOffsets and sources, both in the order of the edges.
+     * The lists of different vertices are filled in parallel.
+     * @throws IllegalArgumentException if one of the vertices is not in this graph.
+     */
+    public void addArcs(List<T> vertices, int[] offsets, int[] targets, int[] inOffsets, int[] sources) {
+        for (T v : vertices) {
+            if (!arcs.containsKey(v)) {
+                throw new IllegalArgumentException("Not a vertex of this graph: " + v);
+            }
+        }
+        if (targets.length == 0) {
+            return;
+        }
+        snapshot = null;
+        ForkJoinPool.commonPool().invoke(new ArcsTask(vertices, offsets, targets, inOffsets, sources,
+            0, vertices.size()));
+    }
+
+    /**
+     * Appends the successors and predecessors of the vertex ids [from, to) to their
+     * lists, splitting the range in half until it is small enough.
+     */
+    private final class ArcsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> vertices;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] inOffsets;
+        private final int[] sources;
+        private final int from;
+        private final int to;
+
+        ArcsTask(List<T> vertices, int[] offsets, int[] targets, int[] inOffsets, int[] sources,
+                 int from, int to) {
+            this.vertices = vertices;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.inOffsets = inOffsets;
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > VERTICES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ArcsTask(vertices, offsets, targets, inOffsets, sources, from, middle),
+                    new ArcsTask(vertices, offsets, targets, inOffsets, sources, middle, to));
+                return;
+            }
+            // only this task writes the lists of its vertices, and the maps themselves are only read
+            for (int v = from; v < to; v++) {
+                T vertex = vertices.get(v);
+                LinkedList<T> l = arcs.get(vertex);
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    l.add(vertices.get(targets[i]));
+                }
+                if (reverseArcs != null) {
+                    LinkedList<T> incoming = reverseArcs.get(vertex);
+                    // like addArc, a predecessor is only added at its first arc
+                    HashSet<T> known = inOffsets[v + 1] - inOffsets[v] > 1 || !incoming.isEmpty()
+                        ? new HashSet<T>(incoming) : null;
+                    for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                        T predecessor = vertices.get(sources[i]);
+                        if (known == null || known.add(predecessor)) {
+                            incoming.add(predecessor);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Removes an arc between two vertices of this graph,
      * if the vertices exist. Else it does not change the graph. 
      */
     public void removeArc (T vertex1, T vertex2) {
       LinkedList<T> l = arcs.get(vertex1);
-      l.remove(vertex2);
+      if (l.remove(vertex2)) {
+        snapshot = null;
+        // vertex1 stays a predecessor while a parallel arc is left
+        if (reverseArcs != null && !l.contains(vertex2)) {
+          reverseArcs.get(vertex2).remove(vertex1);
+        }
+      }
     }
     
     /**
@@ -121,10 +299,14 @@ public class AdjListsGraph<T> {
 
     /**
      * Retrieve from a graph the vertices x preceding vertex v (x->v)
-     * and returns them onto a linked list. 
+     * and returns them onto a linked list, each once even if there are parallel arcs.
      * Assumes that the vertex is in the graph.
+     * With the predecessor index this takes O(in-degree), otherwise it scans every vertex.
      */
     public LinkedList<T> getPredecessors(T vertex) {
+        if (reverseArcs != null) {
+            return new LinkedList<T>(reverseArcs.get(vertex));
+        }
         LinkedList<T> predecessors = new LinkedList<>();
         for(T v : this.arcs.keySet()) {
             if (isArc(v, vertex)) {
@@ -134,44 +316,147 @@ public class AdjListsGraph<T> {
         return predecessors;
     }
 
+    /**
+     * Returns the number of vertices with an arc to the given vertex, i.e. the size of
+     * getPredecessors: parallel arcs count once, with or without the predecessor index.
+     * Assumes that the vertex is in the graph.
+     * Takes O(1) with the predecessor index, otherwise it scans every vertex.
+     */
+    public int getInDegree(T vertex) {
+        if (reverseArcs != null) {
+            return reverseArcs.get(vertex).size();
+        }
+        return getPredecessors(vertex).size();
+    }
+
     /**
      * Returns a list of paths to reach all nodes reachable from the start vertex.
      * Assumes that startVertex is in this graph.
+     * Every path is materialized; use search when only a few paths or
+     * distances are needed.
      *  
      * @param startVertex Start point for the BFS
      * @return a list of paths to all nodes reachable from startVertex
      */
     public LinkedList<LinkedList<T>> breadthFirstSearch(T startVertex) {
         LinkedList<LinkedList<T>> result = new LinkedList<LinkedList<T>>();
-        
-        HashSet<T> marked = new HashSet<T>();
-        ArrayDeque<LinkedList<T>> queue = new ArrayDeque<LinkedList<T>>();
-
-        LinkedList<T> startPath = new LinkedList<T>();
-        startPath.add(startVertex);
-        queue.add(startPath);
-        marked.add(startVertex);
-
-        while (queue.size() > 0) {
-            LinkedList<T> current = queue.remove();
-            result.add(current);
-
-            for (T neighbor : getSuccessors(current.getLast())) {
-                if (!marked.contains(neighbor)) {
-                    LinkedList<T> newPath = new LinkedList<T>();
-                    for (T elt : current) {
-                        newPath.add(elt);
-                    }
-                    newPath.add(neighbor);
-                    queue.add(newPath);
-                    marked.add(neighbor);
-                }
+        BfsResult<T> search = search(startVertex);
+        for (int i = 0; i < search.getNumReached(); i++) {
+            result.add(search.getPath(search.getReachedId(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Runs a breadth-first search from the start vertex over a snapshot of this graph.
+     * Assumes that startVertex is in this graph.
+     *
+     * @param startVertex Start point for the BFS
+     * @return parent and distance arrays from which paths are built on demand
+     */
+    public BfsResult<T> search(T startVertex) {
+        CsrGraph<T> csr = freeze();
+        return csr.search(csr.getId(startVertex));
+    }
+
+    /**
+     * Runs a breadth-first search from the start vertex that stops as soon as
+     * the target is reached. Assumes that both vertices are in this graph.
+     *
+     * @param startVertex Start point for the BFS
+     * @param target vertex at which the search stops
+     * @return parent and distance arrays from which paths are built on demand
+     */
+    public BfsResult<T> search(T startVertex, T target) {
+        CsrGraph<T> csr = freeze();
+        return csr.search(csr.getId(startVertex), csr.getId(target));
+    }
+
+    /**
+     * Runs a breadth-first search from the start vertex on the worker threads of
+     * the given parallel search. The result is the same as search(startVertex):
+     * same parents, distances and order in which the vertices are reached.
+     * Assumes that startVertex is in this graph.
+     *
+     * @param startVertex Start point for the BFS
+     * @param parallelBfs parallel search engine, which sets the number of threads
+     * @return parent and distance arrays from which paths are built on demand
+     */
+    public BfsResult<T> search(T startVertex, ParallelBfs parallelBfs) {
+        CsrGraph<T> csr = freeze();
+        return parallelBfs.search(csr, csr.getId(startVertex));
+    }
+
+    /**
+     * Finds a shortest path between two vertices with a bidirectional
+     * breadth-first search that meets in the middle, instead of sweeping
+     * the whole graph from the source. Assumes that both vertices are in this graph.
+     *
+     * @param source vertex the path starts at
+     * @param target vertex the path ends at
+     * @return the path and its number of hops; not found if target is unreachable
+     */
+    public ShortestPath<T> shortestPath(T source, T target) {
+        CsrGraph<T> csr = freeze();
+        return csr.shortestPath(csr.getId(source), csr.getId(target));
+    }
+
+    /**
+     * Runs a breadth-first search from each of the given vertices, advancing
+     * 64 of them at a time with bitmasks, and keeps per-source eccentricity,
+     * farthest vertices and distance histograms.
+     * Assumes that all the sources are in this graph.
+     *
+     * @param sources vertices to search from
+     * @return the per-source results, in the order the sources were given
+     */
+    public MultiSourceBfs<T> multiSourceSearch(Iterable<T> sources) {
+        CsrGraph<T> csr = freeze();
+        int[] ids = new int[csr.getNumVertices()];
+        int count = 0;
+        for (T source : sources) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2 + 1);
             }
+            ids[count++] = csr.getId(source);
         }
+        return new MultiSourceBfs<T>(csr, Arrays.copyOf(ids, count));
+    }
 
-        return result;
+    /**
+     * Returns a read-only CSR snapshot of this graph: adjacency is kept in two
+     * int arrays and every vertex gets a dense id from 0 to getNumVertices()-1.
+     * Later changes to this graph are not reflected in the snapshot; the
+     * snapshot is reused by later calls until the graph changes.
+     *
+     * @return an immutable snapshot of this graph
+     */
+    public CsrGraph<T> freeze() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        int n = arcs.size();
+        ArrayList<T> vertices = new ArrayList<T>(n);
+        HashMap<T, Integer> ids = new HashMap<T, Integer>(n * 2);
+        for (T v : arcs.keySet()) {
+            ids.put(v, vertices.size());
+            vertices.add(v);
+        }
+
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[getNumArcs()];
+        int pos = 0;
+        for (int id = 0; id < n; id++) {
+            // removeVertex drops the arcs to a removed vertex, so every successor has an id
+            for (T successor : arcs.get(vertices.get(id))) {
+                targets[pos++] = ids.get(successor);
+            }
+            offsets[id + 1] = pos;
+        }
+        snapshot = new CsrGraph<T>(offsets, targets, vertices, ids);
+        return snapshot;
     }
- 
+
     /**
      * Returns a string representation of the graph. 
      */
@@ -222,6 +507,51 @@ public class AdjListsGraph<T> {
         g.addArc("J", "H");
 
         System.out.println(g.breadthFirstSearch("A"));
+
+        CsrGraph<String> snapshot = g.freeze();
+        System.out.println(snapshot);
+        System.out.println(Arrays.toString(snapshot.breadthFirstSearch(snapshot.getId("A"))));
+        System.out.println(g.shortestPath("C", "H"));
+
+        // the parallel search must build the same tree as the sequential one, also on a graph
+        // dense enough to go bottom-up and with parallel arcs
+        AdjListsGraph<Integer> random = new AdjListsGraph<Integer>();
+        Random rnd = new Random(2019);
+        for (int i = 0; i < 1000; i++) {
+            random.addVertex(i);
+        }
+        for (int i = 0; i < 8000; i++) {
+            random.addArc(rnd.nextInt(1000), rnd.nextInt(500));
+        }
+        System.out.println("Parallel BFS matches sequential BFS: "
+            + (sameSearches(g, 3) && sameSearches(random, 1) && sameSearches(random, 4)));
+    }
+
+    /**
+     * Compares the parallel search from every vertex with the sequential one.
+     * @return true if parents, distances and reach order are the same from every vertex
+     */
+    private static <T> boolean sameSearches(AdjListsGraph<T> graph, int parallelism) {
+        ParallelBfs parallelBfs = new ParallelBfs(parallelism);
+        try {
+            for (T v : graph.getVertices()) {
+                BfsResult<T> expected = graph.search(v);
+                BfsResult<T> actual = graph.search(v, parallelBfs);
+                if (expected.getNumReached() != actual.getNumReached()) {
+                    return false;
+                }
+                for (int i = 0; i < expected.getNumReached(); i++) {
+                    int id = expected.getReachedId(i);
+                    if (id != actual.getReachedId(i) || expected.getParent(id) != actual.getParent(id)
+                        || expected.getDistance(id) != actual.getDistance(id)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            parallelBfs.shutdown();
+        }
     }
 
 }
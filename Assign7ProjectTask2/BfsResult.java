@@ -0,0 +1,110 @@
+/********************************************************************
+ * BfsResult.java @version 2019.04.11
+ * Result of a breadth-first search over a CsrGraph, kept as a parent
+ * array and a distance array indexed by vertex id. Paths are only
+ * built when they are asked for.
+ *
+ * KNOWN FEATURES/BUGS:
+ * If the search stopped early at a target, vertices that were not
+ * reached before the target are reported as unreachable.
+ ********************************************************************/
+
+import java.util.*;
+
+public class BfsResult<T> {
+
+    private final CsrGraph<T> graph;
+    private final int sourceId;
+    /** parent[v] is the vertex v was discovered from, -1 for the source and unreached vertices */
+    private final int[] parent;
+    /** distance[v] is the number of hops from the source, -1 if v was not reached */
+    private final int[] distance;
+    /** Reached vertex ids in the order the search discovered them */
+    private final int[] order;
+    private final int numReached;
+    private final boolean complete;
+
+    BfsResult(CsrGraph<T> graph, int sourceId, int[] parent, int[] distance,
+              int[] order, int numReached, boolean complete) {
+        this.graph = graph;
+        this.sourceId = sourceId;
+        this.parent = parent;
+        this.distance = distance;
+        this.order = order;
+        this.numReached = numReached;
+        this.complete = complete;
+    }
+
+    /** Returns the snapshot this search ran on. */
+    public CsrGraph<T> getGraph() {
+        return graph;
+    }
+
+    /** Returns the vertex the search started from. */
+    public T getSource() {
+        return graph.getVertex(sourceId);
+    }
+
+    /** Returns false if the search stopped early once its target was reached. */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** Returns the number of vertices reached, including the source. */
+    public int getNumReached() {
+        return numReached;
+    }
+
+    /** Returns the id of the i-th vertex reached, in breadth-first order (0 is the source). */
+    public int getReachedId(int i) {
+        if (i >= numReached) {
+            throw new IndexOutOfBoundsException("Only " + numReached + " vertices were reached");
+        }
+        return order[i];
+    }
+
+    /** Returns the number of hops from the source to the vertex with the given id, -1 if it was not reached. */
+    public int getDistance(int id) {
+        return distance[id];
+    }
+
+    /** Returns the number of hops from the source to the given vertex, -1 if it was not reached. */
+    public int getDistance(T vertex) {
+        int id = graph.getId(vertex);
+        return id == CsrGraph.NOT_FOUND ? -1 : distance[id];
+    }
+
+    /** Returns the id of the vertex that the given vertex was discovered from, -1 for the source and unreached vertices. */
+    public int getParent(int id) {
+        return parent[id];
+    }
+
+    /** Returns a copy of the distances, indexed by vertex id. */
+    public int[] getDistances() {
+        return distance.clone();
+    }
+
+    /**
+     * Returns the path from the source to the vertex with the given id,
+     * or null if that vertex was not reached.
+     */
+    public LinkedList<T> getPath(int id) {
+        if (distance[id] == -1) {
+            return null;
+        }
+        LinkedList<T> path = new LinkedList<T>();
+        for (int v = id; v != -1; v = parent[v]) {
+            path.addFirst(graph.getVertex(v));
+        }
+        return path;
+    }
+
+    /**
+     * Returns the path from the source to the given vertex,
+     * or null if that vertex was not reached.
+     */
+    public LinkedList<T> getPath(T vertex) {
+        int id = graph.getId(vertex);
+        return id == CsrGraph.NOT_FOUND ? null : getPath(id);
+    }
+}
@@ -0,0 +1,346 @@
+/********************************************************************
+ * CsrGraph.java @version 2019.04.11
+ * Immutable snapshot of a directed graph in compressed sparse row
+ * (CSR) form. Vertices are numbered densely from 0 to n-1 and the
+ * successors of vertex v are targets[offsets[v]] .. targets[offsets[v+1]-1].
+ *
+ * KNOWN FEATURES/BUGS:
+ * The snapshot does not see changes made to the graph it was frozen from.
+ ********************************************************************/
+
+import java.util.*;
+
+public class CsrGraph<T> {
+
+    /** Returned by getId for objects that are not vertices of this snapshot. */
+    public static final int NOT_FOUND = -1;
+
+    /** offsets[v] is the index in targets of the first successor of v; length n+1 */
+    private final int[] offsets;
+    /** Successor ids of all vertices, grouped by source vertex */
+    private final int[] targets;
+    /** Maps a dense vertex id to its object */
+    private final ArrayList<T> vertices;
+    /** Maps a vertex object to its dense id */
+    private final HashMap<T, Integer> ids;
+
+    /** Offsets into sources, like offsets for targets; built on first use */
+    private volatile int[] inOffsets;
+    /** Predecessor ids of all vertices, grouped by target vertex in increasing id order */
+    private volatile int[] sources;
+
+    /**
+     * Builds a snapshot from already computed arrays. Used by AdjListsGraph.freeze().
+     */
+    CsrGraph(int[] offsets, int[] targets, ArrayList<T> vertices, HashMap<T, Integer> ids) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.vertices = vertices;
+        this.ids = ids;
+    }
+
+    /** Returns the number of vertices in this snapshot. */
+    public int getNumVertices() {
+        return vertices.size();
+    }
+
+    /** Returns the number of arcs in this snapshot. */
+    public int getNumArcs() {
+        return targets.length;
+    }
+
+    /** Returns the dense id of the given vertex, or NOT_FOUND if it is not in the snapshot. */
+    public int getId(T vertex) {
+        Integer id = ids.get(vertex);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    /** Returns the vertex with the given dense id. */
+    public T getVertex(int id) {
+        return vertices.get(id);
+    }
+
+    /** Returns the number of successors of the vertex with the given id. */
+    public int getOutDegree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Returns the ids of the successors of the vertex with the given id,
+     * in the same order as AdjListsGraph.getSuccessors returned them.
+     */
+    public int[] getSuccessors(int id) {
+        return Arrays.copyOfRange(targets, offsets[id], offsets[id + 1]);
+    }
+
+    /**
+     * Returns the i-th successor of the vertex with the given id. Together with
+     * getOutDegree this walks the successors without copying them.
+     */
+    public int getSuccessor(int id, int i) {
+        return targets[offsets[id] + i];
+    }
+
+    /** Returns the number of predecessors of the vertex with the given id. */
+    public int getInDegree(int id) {
+        int[] in = getInOffsets();
+        return in[id + 1] - in[id];
+    }
+
+    /**
+     * Returns the ids of the predecessors of the vertex with the given id,
+     * in increasing id order.
+     */
+    public int[] getPredecessors(int id) {
+        int[] in = getInOffsets();
+        return Arrays.copyOfRange(sources, in[id], in[id + 1]);
+    }
+
+    /**
+     * Returns the i-th predecessor of the vertex with the given id. Together with
+     * getInDegree this walks the predecessors without copying them.
+     */
+    public int getPredecessor(int id, int i) {
+        return sources[getInOffsets()[id] + i];
+    }
+
+    /** Returns the reverse offsets, building the reverse adjacency arrays the first time. */
+    int[] getInOffsets() {
+        int[] in = inOffsets;
+        if (in == null) {
+            in = buildReverseArcs();
+        }
+        return in;
+    }
+
+    /** Returns the reverse targets (predecessor ids), see getInOffsets. */
+    int[] getSources() {
+        getInOffsets();
+        return sources;
+    }
+
+    /** Returns the forward offsets array; shared, must not be modified. */
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    /** Returns the forward targets array; shared, must not be modified. */
+    int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Transposes the forward arrays with a counting sort. Walking the sources
+     * in id order leaves every predecessor list sorted by id.
+     */
+    private synchronized int[] buildReverseArcs() {
+        if (inOffsets != null) {
+            return inOffsets;
+        }
+        int n = getNumVertices();
+        int[] in = new int[n + 1];
+        for (int i = 0; i < targets.length; i++) {
+            in[targets[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            in[v + 1] += in[v];
+        }
+        int[] next = Arrays.copyOf(in, n);
+        int[] src = new int[targets.length];
+        for (int u = 0; u < n; u++) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                src[next[targets[i]]++] = u;
+            }
+        }
+        sources = src;
+        inOffsets = in;
+        return in;
+    }
+
+    /**
+     * Returns the number of arcs (hops) from startId to every vertex,
+     * or -1 for vertices that cannot be reached.
+     *
+     * @param startId Start point for the BFS
+     * @return an array of distances indexed by vertex id
+     */
+    public int[] breadthFirstSearch(int startId) {
+        return search(startId).getDistances();
+    }
+
+    /**
+     * Runs a breadth-first search over every vertex reachable from startId.
+     *
+     * @param startId Start point for the BFS
+     * @return the parent and distance arrays of the search
+     */
+    public BfsResult<T> search(int startId) {
+        return search(startId, NOT_FOUND);
+    }
+
+    /**
+     * Runs a breadth-first search from startId that stops as soon as targetId
+     * is reached. Pass NOT_FOUND as targetId to visit every reachable vertex.
+     *
+     * @param startId Start point for the BFS
+     * @param targetId vertex at which the search may stop
+     * @return the parent and distance arrays of the search
+     */
+    public BfsResult<T> search(int startId, int targetId) {
+        int n = getNumVertices();
+        int[] parent = new int[n];
+        int[] distance = new int[n];
+        Arrays.fill(parent, -1);
+        Arrays.fill(distance, -1);
+        // the queue doubles as the record of the order vertices were reached in
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+
+        queue[tail++] = startId;
+        distance[startId] = 0;
+        boolean complete = startId != targetId;
+
+        while (head < tail && complete) {
+            int current = queue[head++];
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int neighbor = targets[i];
+                if (distance[neighbor] == -1) {
+                    distance[neighbor] = distance[current] + 1;
+                    parent[neighbor] = current;
+                    queue[tail++] = neighbor;
+                    if (neighbor == targetId) {
+                        complete = false;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return new BfsResult<T>(this, startId, parent, distance, queue, tail, complete);
+    }
+
+    /**
+     * Finds a shortest path from sourceId to targetId with a bidirectional
+     * breadth-first search: one search goes forward over successors from the
+     * source, the other backward over predecessors from the target, always
+     * expanding whichever frontier is smaller, until they meet.
+     *
+     * @param sourceId vertex the path starts at
+     * @param targetId vertex the path ends at
+     * @return the path and its length; not found if the target is unreachable
+     */
+    public ShortestPath<T> shortestPath(int sourceId, int targetId) {
+        T source = getVertex(sourceId);
+        T target = getVertex(targetId);
+        if (sourceId == targetId) {
+            LinkedList<T> path = new LinkedList<T>();
+            path.add(source);
+            return new ShortestPath<T>(source, target, path);
+        }
+
+        int n = getNumVertices();
+        int[] in = getInOffsets();
+        // forwardParent[v]: previous vertex on the way from the source, -2 if not reached
+        // backwardChild[v]: next vertex on the way to the target, -2 if not reached
+        int[] forwardParent = new int[n];
+        int[] backwardChild = new int[n];
+        int[] forwardDistance = new int[n];
+        int[] backwardDistance = new int[n];
+        Arrays.fill(forwardParent, -2);
+        Arrays.fill(backwardChild, -2);
+
+        int[] forwardFrontier = new int[n];
+        int[] backwardFrontier = new int[n];
+        int[] nextFrontier = new int[n];
+        int forwardSize = 1;
+        int backwardSize = 1;
+        forwardFrontier[0] = sourceId;
+        backwardFrontier[0] = targetId;
+        forwardParent[sourceId] = -1;
+        backwardChild[targetId] = -1;
+
+        int bestLength = Integer.MAX_VALUE;
+        int meetFrom = -1;
+        int meetTo = -1;
+
+        while (forwardSize > 0 && backwardSize > 0 && bestLength == Integer.MAX_VALUE) {
+            int nextSize = 0;
+            if (forwardSize <= backwardSize) {
+                // expand one whole level forward
+                for (int f = 0; f < forwardSize; f++) {
+                    int u = forwardFrontier[f];
+                    for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                        int v = targets[i];
+                        if (backwardChild[v] != -2) {
+                            int length = forwardDistance[u] + 1 + backwardDistance[v];
+                            if (length < bestLength) {
+                                bestLength = length;
+                                meetFrom = u;
+                                meetTo = v;
+                            }
+                        }
+                        if (forwardParent[v] == -2) {
+                            forwardParent[v] = u;
+                            forwardDistance[v] = forwardDistance[u] + 1;
+                            nextFrontier[nextSize++] = v;
+                        }
+                    }
+                }
+                int[] swap = forwardFrontier;
+                forwardFrontier = nextFrontier;
+                nextFrontier = swap;
+                forwardSize = nextSize;
+            } else {
+                // expand one whole level backward
+                for (int b = 0; b < backwardSize; b++) {
+                    int v = backwardFrontier[b];
+                    for (int i = in[v]; i < in[v + 1]; i++) {
+                        int u = sources[i];
+                        if (forwardParent[u] != -2) {
+                            int length = forwardDistance[u] + 1 + backwardDistance[v];
+                            if (length < bestLength) {
+                                bestLength = length;
+                                meetFrom = u;
+                                meetTo = v;
+                            }
+                        }
+                        if (backwardChild[u] == -2) {
+                            backwardChild[u] = v;
+                            backwardDistance[u] = backwardDistance[v] + 1;
+                            nextFrontier[nextSize++] = u;
+                        }
+                    }
+                }
+                int[] swap = backwardFrontier;
+                backwardFrontier = nextFrontier;
+                nextFrontier = swap;
+                backwardSize = nextSize;
+            }
+        }
+
+        if (meetFrom == -1) {
+            return new ShortestPath<T>(source, target, null);
+        }
+        // the meeting arc is meetFrom -> meetTo
+        LinkedList<T> path = new LinkedList<T>();
+        for (int v = meetFrom; v != -1; v = forwardParent[v]) {
+            path.addFirst(getVertex(v));
+        }
+        for (int v = meetTo; v != -1; v = backwardChild[v]) {
+            path.addLast(getVertex(v));
+        }
+        return new ShortestPath<T>(source, target, path);
+    }
+
+    /**
+     * Returns a string representation of the snapshot.
+     */
+    public String toString() {
+        if (vertices.size() == 0) return "Graph is empty";
+        StringBuilder sb = new StringBuilder();
+        sb.append("# vertices in graph: " + this.getNumVertices());
+        sb.append("# arcs in graph: " + this.getNumArcs());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * filename: DegreeStats.java
+ * description: Out- and in-degree of every vertex id, with the number of
+ *              vertices of each out-degree and the largest degrees. The
+ *              counts are updated as vertices and arcs are added, so they
+ *              never have to be recomputed from the whole graph.
+ */
+
+import java.util.Arrays;
+
+public class DegreeStats {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] outDegrees;
+    private int[] inDegrees;
+    /** outDegreeCounts[d] is the number of vertices with out-degree d. */
+    private int[] outDegreeCounts;
+    private int numVertices;
+    private long numArcs;
+    private int maxOutDegree;
+    private int maxInDegree;
+
+    public DegreeStats() {
+        this.outDegrees = new int[INITIAL_CAPACITY];
+        this.inDegrees = new int[INITIAL_CAPACITY];
+        this.outDegreeCounts = new int[16];
+    }
+
+    /**
+     * Adds vertices without arcs; they get the next vertex ids.
+     * @param count the number of new vertices
+     */
+    public void addVertices(int count) {
+        int n = this.numVertices + count;
+        if (n > this.outDegrees.length) {
+            int capacity = Math.max(n, this.outDegrees.length * 2);
+            this.outDegrees = Arrays.copyOf(this.outDegrees, capacity);
+            this.inDegrees = Arrays.copyOf(this.inDegrees, capacity);
+        }
+        this.outDegreeCounts[0] += count;
+        this.numVertices = n;
+    }
+
+    /**
+     * Adds arcs given in CSR form, e.g. those of an EdgeIngestion.
+     * @param offsets the arcs of vertex v are targets[offsets[v]] to targets[offsets[v + 1] - 1]
+     * @param targets the vertex ids of the successors
+     * @throws IllegalArgumentException if the arcs have more vertices than these stats.
+     */
+    public void addArcs(int[] offsets, int[] targets) {
+        if (offsets.length - 1 > this.numVertices) {
+            throw new IllegalArgumentException(
+                "Arcs of " + (offsets.length - 1) + " vertices but only " + this.numVertices + " vertices");
+        }
+        for (int v = 0; v + 1 < offsets.length; v++) {
+            int added = offsets[v + 1] - offsets[v];
+            if (added > 0) {
+                addOutDegree(v, added);
+            }
+        }
+        for (int target : targets) {
+            this.maxInDegree = Math.max(this.maxInDegree, ++this.inDegrees[target]);
+        }
+        this.numArcs += targets.length;
+    }
+
+    /**
+     * Adds a single arc, e.g. one of an EdgeDelta; unlike addArcs, this takes
+     * constant time however many vertices there are.
+     * @param source the vertex id of the predecessor
+     * @param target the vertex id of the successor
+     */
+    public void addArc(int source, int target) {
+        checkId(source);
+        checkId(target);
+        addOutDegree(source, 1);
+        this.maxInDegree = Math.max(this.maxInDegree, ++this.inDegrees[target]);
+        this.numArcs++;
+    }
+
+    private void addOutDegree(int v, int added) {
+        int degree = this.outDegrees[v] + added;
+        if (degree >= this.outDegreeCounts.length) {
+            this.outDegreeCounts = Arrays.copyOf(this.outDegreeCounts,
+                Math.max(degree + 1, this.outDegreeCounts.length * 2));
+        }
+        this.outDegreeCounts[this.outDegrees[v]]--;
+        this.outDegreeCounts[degree]++;
+        this.outDegrees[v] = degree;
+        this.maxOutDegree = Math.max(this.maxOutDegree, degree);
+    }
+
+    /**
+     * @return the number of vertices.
+     */
+    public int getNumVertices() {
+        return this.numVertices;
+    }
+
+    /**
+     * @return the number of arcs.
+     */
+    public long getNumArcs() {
+        return this.numArcs;
+    }
+
+    /**
+     * @return the number of successors of the vertex with the given id.
+     */
+    public int getOutDegree(int id) {
+        checkId(id);
+        return this.outDegrees[id];
+    }
+
+    /**
+     * @return the number of predecessors of the vertex with the given id.
+     */
+    public int getInDegree(int id) {
+        checkId(id);
+        return this.inDegrees[id];
+    }
+
+    /**
+     * @return the number of vertices with the given out-degree.
+     */
+    public int getNumWithOutDegree(int degree) {
+        return degree >= 0 && degree < this.outDegreeCounts.length ? this.outDegreeCounts[degree] : 0;
+    }
+
+    /**
+     * @return the largest out-degree of a vertex, 0 if there are no arcs.
+     */
+    public int getMaxOutDegree() {
+        return this.maxOutDegree;
+    }
+
+    /**
+     * @return the largest in-degree of a vertex, 0 if there are no arcs.
+     */
+    public int getMaxInDegree() {
+        return this.maxInDegree;
+    }
+
+    /**
+     * @return the average out-degree (which is also the average in-degree).
+     */
+    public double getAverageDegree() {
+        return (double) this.numArcs / (double) this.numVertices;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= this.numVertices) {
+            throw new IndexOutOfBoundsException("Vertex id " + id + " of " + this.numVertices);
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+/**
+ * filename: EdgeDelta.java
+ * description: The edges read by one Reader.update(), resolved against the
+ *              name index one at a time. The arcs are kept as (source,
+ *              target) vertex id pairs in file order, so an update takes
+ *              time and memory in the number of new edges rather than in
+ *              the number of vertices of the graph.
+ *
+ * An edge that names a person who is not in the nodes file yet is not dropped
+ * but stays pending: the next delta resolves the pending edges again, in file
+ * order and before its new edges, since the nodes file may have grown.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class EdgeDelta {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final NameIndex nameIndex;
+    /** Arc i goes from vertex sources[i] to vertex targets[i]. */
+    private int[] sources;
+    private int[] targets;
+    private int numArcs;
+    private int numResolvedPending;
+
+    private long numRows;
+    private final List<String> pendingFromNames;
+    private final List<String> pendingToNames;
+    private long unresolvedFrom;
+    private long unresolvedTo;
+    private final Set<String> samples;
+
+    /**
+     * Resolves the edges that were pending after the previous update, keeping the arcs of
+     * those whose names are now known.
+     * @param nameIndex the vertex ids by name
+     * @param pendingFromNames the from_name of each pending edge, in file order
+     * @param pendingToNames the to_name of each pending edge, in the same order
+     */
+    public EdgeDelta(NameIndex nameIndex, List<String> pendingFromNames, List<String> pendingToNames) {
+        this.nameIndex = nameIndex;
+        this.sources = new int[INITIAL_CAPACITY];
+        this.targets = new int[INITIAL_CAPACITY];
+        this.pendingFromNames = new ArrayList<String>();
+        this.pendingToNames = new ArrayList<String>();
+        this.samples = new LinkedHashSet<String>();
+        int size = Math.min(pendingFromNames.size(), pendingToNames.size());
+        for (int i = 0; i < size; i++) {
+            if (resolve(pendingFromNames.get(i), pendingToNames.get(i))) {
+                this.numResolvedPending++;
+            }
+        }
+    }
+
+    /**
+     * Resolves the names of a new edge and keeps its arc, or keeps it pending.
+     * @return true if both names are known.
+     */
+    public boolean add(String fromName, String toName) {
+        this.numRows++;
+        return resolve(fromName, toName);
+    }
+
+    private boolean resolve(String fromName, String toName) {
+        int source = this.nameIndex.get(fromName);
+        int target = this.nameIndex.get(toName);
+        if (source == NameIndex.NOT_FOUND || target == NameIndex.NOT_FOUND) {
+            if (source == NameIndex.NOT_FOUND) {
+                this.unresolvedFrom++;
+                sample(fromName);
+            }
+            if (target == NameIndex.NOT_FOUND) {
+                this.unresolvedTo++;
+                sample(toName);
+            }
+            this.pendingFromNames.add(fromName);
+            this.pendingToNames.add(toName);
+            return false;
+        }
+        if (this.numArcs == this.sources.length) {
+            this.sources = Arrays.copyOf(this.sources, this.numArcs * 2);
+            this.targets = Arrays.copyOf(this.targets, this.numArcs * 2);
+        }
+        this.sources[this.numArcs] = source;
+        this.targets[this.numArcs] = target;
+        this.numArcs++;
+        return true;
+    }
+
+    private void sample(String name) {
+        if (this.samples.size() < EdgeIngestion.MAX_SAMPLES) {
+            this.samples.add(name);
+        }
+    }
+
+    /**
+     * @return the number of arcs, i.e. of edges between two known people.
+     */
+    public int getNumArcs() {
+        return this.numArcs;
+    }
+
+    /**
+     * @return the vertex id of the source of arc i; the arcs of pending edges come first,
+     *         then those of the new edges, each in file order.
+     */
+    public int getSource(int i) {
+        checkArc(i);
+        return this.sources[i];
+    }
+
+    /**
+     * @return the vertex id of the target of arc i, in the order of getSource.
+     */
+    public int getTarget(int i) {
+        checkArc(i);
+        return this.targets[i];
+    }
+
+    /**
+     * @return the number of arcs of edges that were pending before this delta.
+     */
+    public int getNumResolvedPending() {
+        return this.numResolvedPending;
+    }
+
+    /**
+     * @return the number of new edges read.
+     */
+    public long getNumRows() {
+        return this.numRows;
+    }
+
+    /**
+     * @return the number of edges, earlier or new, that still name an unknown person.
+     */
+    public int getNumPending() {
+        return this.pendingFromNames.size();
+    }
+
+    /**
+     * @return the from_name of each edge that is still pending, in file order.
+     */
+    public List<String> getPendingFromNames() {
+        return this.pendingFromNames;
+    }
+
+    /**
+     * @return the to_name of each edge that is still pending, in the order of getPendingFromNames().
+     */
+    public List<String> getPendingToNames() {
+        return this.pendingToNames;
+    }
+
+    /**
+     * @return the number of pending edges whose from_name is unknown.
+     */
+    public long getNumUnresolvedFrom() {
+        return this.unresolvedFrom;
+    }
+
+    /**
+     * @return the number of pending edges whose to_name is unknown.
+     */
+    public long getNumUnresolvedTo() {
+        return this.unresolvedTo;
+    }
+
+    /**
+     * @return up to EdgeIngestion.MAX_SAMPLES distinct unknown names, in the order they were met.
+     */
+    public List<String> getUnresolvedSamples() {
+        return new ArrayList<String>(this.samples);
+    }
+
+    /**
+     * Returns a one-line summary of the edges, like EdgeIngestion.toString.
+     * @return a String representation of this delta.
+     */
+    @Override
+    public String toString() {
+        String s = this.numRows + " edges, " + this.numArcs + " arcs";
+        if (this.numResolvedPending > 0) {
+            s += " (" + this.numResolvedPending + " of earlier edges)";
+        }
+        if (!this.pendingFromNames.isEmpty()) {
+            s += ", " + this.pendingFromNames.size() + " pending (unknown from_name: " + this.unresolvedFrom
+                + ", unknown to_name: " + this.unresolvedTo + ", e.g. " + this.samples + ")";
+        }
+        return s;
+    }
+
+    private void checkArc(int i) {
+        if (i < 0 || i >= this.numArcs) {
+            throw new IndexOutOfBoundsException("Arc " + i + " of " + this.numArcs);
+        }
+    }
+
+}
@@ -0,0 +1,302 @@
+/**
+ * filename: EdgeIngestion.java
+ * description: Bulk loading of the edges file. Each batch of (from_name,
+ *              to_name) pairs is resolved against the name index as it
+ *              arrives, and the out- and in-degree of every vertex are
+ *              counted (first pass). finish() then allocates the CSR arrays
+ *              at their exact size and fills them (second pass), keeping
+ *              the arcs of each vertex in file order.
+ *
+ * Edges whose names are not in the nodes file are dropped, as addArc does,
+ * but they are counted and the first few names are kept as samples, so that
+ * an edges file and a nodes file that have drifted apart can be noticed.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class EdgeIngestion {
+
+    /** Number of distinct unresolved names kept as samples. */
+    public static final int MAX_SAMPLES = 10;
+
+    private final NameIndex nameIndex;
+    private final int numVertices;
+    /** Resolved arcs of each batch, as vertex ids, in file order; exactly sized. */
+    private final List<int[]> batchSources;
+    private final List<int[]> batchTargets;
+    /** Until finish(), offsets[v + 1] and inOffsets[v + 1] count the arcs out of and into vertex v. */
+    private int[] offsets;
+    private int[] inOffsets;
+    private int[] targets;
+    private int[] sources;
+
+    private long numRows;
+    private int numArcs;
+    private long unresolvedFrom;
+    private long unresolvedTo;
+    private long numDropped;
+    private final Set<String> samples;
+    /** The names of the dropped edges, in file order; null unless they are kept. */
+    private final List<String> droppedFromNames;
+    private final List<String> droppedToNames;
+
+    /**
+     * @param nameIndex the vertex ids by name, all below numVertices
+     * @param numVertices the number of vertices of the graph
+     */
+    public EdgeIngestion(NameIndex nameIndex, int numVertices) {
+        this(nameIndex, numVertices, false);
+    }
+
+    /**
+     * @param nameIndex the vertex ids by name, all below numVertices
+     * @param numVertices the number of vertices of the graph
+     * @param keepDropped whether to keep the names of the dropped edges, e.g. to resolve them
+     *                    again once the nodes file has grown
+     */
+    public EdgeIngestion(NameIndex nameIndex, int numVertices, boolean keepDropped) {
+        this.nameIndex = nameIndex;
+        this.numVertices = numVertices;
+        this.batchSources = new ArrayList<int[]>();
+        this.batchTargets = new ArrayList<int[]>();
+        this.offsets = new int[numVertices + 1];
+        this.inOffsets = new int[numVertices + 1];
+        this.samples = new LinkedHashSet<String>();
+        this.droppedFromNames = keepDropped ? new ArrayList<String>() : null;
+        this.droppedToNames = keepDropped ? new ArrayList<String>() : null;
+    }
+
+    /**
+     * Rebuilds a finished ingestion from its arcs and counts, e.g. those kept in a
+     * GraphSnapshot. The predecessors are computed from the successors, so those of
+     * each vertex are in the order of the ids of their sources rather than in file order.
+     * @param offsets the arcs of vertex v are targets[offsets[v]] to targets[offsets[v + 1] - 1]
+     * @param targets the vertex ids of the successors
+     * @param numRows the number of edges read
+     * @param unresolvedFrom the number of edges whose from_name is unknown
+     * @param unresolvedTo the number of edges whose to_name is unknown
+     * @param numDropped the number of edges that were dropped because a name is unknown
+     * @param samples distinct unknown names, at most MAX_SAMPLES are kept
+     * @return the ingestion, already finished.
+     */
+    public static EdgeIngestion restore(int[] offsets, int[] targets, long numRows, long unresolvedFrom,
+        long unresolvedTo, long numDropped, List<String> samples) {
+        int numVertices = offsets.length - 1;
+        EdgeIngestion ingestion = new EdgeIngestion(null, numVertices);
+        ingestion.offsets = offsets;
+        ingestion.targets = targets;
+        ingestion.numArcs = targets.length;
+        ingestion.numRows = numRows;
+        ingestion.unresolvedFrom = unresolvedFrom;
+        ingestion.unresolvedTo = unresolvedTo;
+        ingestion.numDropped = numDropped;
+        for (String sample : samples) {
+            if (ingestion.samples.size() < MAX_SAMPLES) {
+                ingestion.samples.add(sample);
+            }
+        }
+
+        // the transpose, by counting sort on the targets
+        int[] inOffsets = ingestion.inOffsets;
+        for (int target : targets) {
+            inOffsets[target + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] sources = new int[targets.length];
+        int[] nextSource = Arrays.copyOf(inOffsets, numVertices);
+        for (int v = 0; v < numVertices; v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                sources[nextSource[targets[i]]++] = v;
+            }
+        }
+        ingestion.sources = sources;
+        return ingestion;
+    }
+
+    /**
+     * First pass over a batch of edges: resolves the names and counts the degrees.
+     * @param fromNames the from_name of each edge
+     * @param toNames the to_name of each edge, in the same order
+     * @throws IllegalStateException if finish() was already called.
+     */
+    public void add(List<String> fromNames, List<String> toNames) {
+        if (this.targets != null) {
+            throw new IllegalStateException("Edges were already finished");
+        }
+        int size = Math.min(fromNames.size(), toNames.size());
+        int[] from = new int[size];
+        int[] to = new int[size];
+        int resolved = 0;
+        for (int i = 0; i < size; i++) {
+            int source = resolve(fromNames.get(i));
+            int target = resolve(toNames.get(i));
+            if (source < 0) {
+                this.unresolvedFrom++;
+            }
+            if (target < 0) {
+                this.unresolvedTo++;
+            }
+            if (source < 0 || target < 0) {
+                this.numDropped++;
+                if (this.droppedFromNames != null) {
+                    this.droppedFromNames.add(fromNames.get(i));
+                    this.droppedToNames.add(toNames.get(i));
+                }
+                continue;
+            }
+            from[resolved] = source;
+            to[resolved] = target;
+            resolved++;
+            this.offsets[source + 1]++;
+            this.inOffsets[target + 1]++;
+        }
+        this.numRows += size;
+        this.numArcs = Math.addExact(this.numArcs, resolved);
+        this.batchSources.add(resolved == size ? from : Arrays.copyOf(from, resolved));
+        this.batchTargets.add(resolved == size ? to : Arrays.copyOf(to, resolved));
+    }
+
+    private int resolve(String name) {
+        int id = this.nameIndex.get(name);
+        if (id != NameIndex.NOT_FOUND) {
+            return id;
+        }
+        if (this.samples.size() < MAX_SAMPLES) {
+            this.samples.add(name);
+        }
+        return -1;
+    }
+
+    /**
+     * Second pass: allocates the CSR arrays at their exact size and fills them
+     * from the batches, which are released. Does nothing if already finished.
+     */
+    public void finish() {
+        if (this.targets != null) {
+            return;
+        }
+        for (int v = 0; v < this.numVertices; v++) {
+            this.offsets[v + 1] += this.offsets[v];
+            this.inOffsets[v + 1] += this.inOffsets[v];
+        }
+        this.targets = new int[this.numArcs];
+        this.sources = new int[this.numArcs];
+        int[] nextTarget = Arrays.copyOf(this.offsets, this.numVertices);
+        int[] nextSource = Arrays.copyOf(this.inOffsets, this.numVertices);
+        for (int b = 0; b < this.batchSources.size(); b++) {
+            int[] from = this.batchSources.get(b);
+            int[] to = this.batchTargets.get(b);
+            for (int i = 0; i < from.length; i++) {
+                this.targets[nextTarget[from[i]]++] = to[i];
+                this.sources[nextSource[to[i]]++] = from[i];
+            }
+        }
+        this.batchSources.clear();
+        this.batchTargets.clear();
+    }
+
+    /**
+     * @return the CSR offsets, one more than there are vertices; only after finish().
+     */
+    public int[] getOffsets() {
+        return this.offsets;
+    }
+
+    /**
+     * @return the successor ids grouped by source, in file order; only after finish().
+     */
+    public int[] getTargets() {
+        return this.targets;
+    }
+
+    /**
+     * @return the offsets into getSources(), like getOffsets(); only after finish().
+     */
+    public int[] getInOffsets() {
+        return this.inOffsets;
+    }
+
+    /**
+     * @return the predecessor ids grouped by target, in file order; only after finish().
+     */
+    public int[] getSources() {
+        return this.sources;
+    }
+
+    /**
+     * @return the number of edges read.
+     */
+    public long getNumRows() {
+        return this.numRows;
+    }
+
+    /**
+     * @return the number of edges between two known people.
+     */
+    public int getNumArcs() {
+        return this.numArcs;
+    }
+
+    /**
+     * @return the number of edges that were dropped because a name is unknown.
+     */
+    public long getNumUnresolved() {
+        return this.numDropped;
+    }
+
+    /**
+     * @return the number of edges whose from_name is unknown.
+     */
+    public long getNumUnresolvedFrom() {
+        return this.unresolvedFrom;
+    }
+
+    /**
+     * @return the number of edges whose to_name is unknown.
+     */
+    public long getNumUnresolvedTo() {
+        return this.unresolvedTo;
+    }
+
+    /**
+     * @return up to MAX_SAMPLES distinct unknown names, in the order they were met.
+     */
+    public List<String> getUnresolvedSamples() {
+        return new ArrayList<String>(this.samples);
+    }
+
+    /**
+     * @return the from_name of each dropped edge, in file order, if they were kept; otherwise null.
+     */
+    public List<String> getDroppedFromNames() {
+        return this.droppedFromNames;
+    }
+
+    /**
+     * @return the to_name of each dropped edge, in the order of getDroppedFromNames().
+     */
+    public List<String> getDroppedToNames() {
+        return this.droppedToNames;
+    }
+
+    /**
+     * Returns a one-line summary of the edges.
+     * @return a String representation of this ingestion.
+     */
+    @Override
+    public String toString() {
+        String s = this.numRows + " edges, " + this.numArcs + " arcs";
+        if (this.numDropped > 0) {
+            s += ", " + this.numDropped + " dropped (unknown from_name: " + this.unresolvedFrom
+                + ", unknown to_name: " + this.unresolvedTo + ", e.g. " + this.samples + ")";
+        }
+        return s;
+    }
+
+}
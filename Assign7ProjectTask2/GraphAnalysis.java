@@ -1,7 +1,13 @@
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.Hashtable;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Vector;
+import fastcsv.CsvAppender;
+import fastcsv.CsvWriter;
 
 /**
  * GraphAnalysis analyzes and produces insights upon a dataset consisting of the Wikipedia pages 
@@ -13,6 +19,8 @@ import java.util.Vector;
 public class GraphAnalysis {
     private Reader graphReader;
     private AdjListsGraph<Person> graph;
+    private Hashtable<String, GroupStats> groupStatsByField = new Hashtable<String, GroupStats>();
+    private ParallelBfs parallelBfs; //null while the searches run on the calling thread
     private static final int SUBSET_SIZE = 1000;
     /**
      * First constructor for GraphAnalysis, which reads in and gets a graph of a FULL dataset of Wikipedia pages upon which analysis is performed.
@@ -33,6 +41,21 @@ public class GraphAnalysis {
         this.graph = graphReader.getGraph();
     }
     
+    /**
+     * Sets how many threads the breadth-first searches of getShortestPath and getFarthestPeople use.
+     * With more than one thread they run on a ParallelBfs, which gives the same results as the sequential search.
+     * @param parallelism the number of threads; 1 searches on the calling thread
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        if (parallelBfs != null) {
+            parallelBfs.shutdown();
+        }
+        parallelBfs = parallelism == 1 ? null : new ParallelBfs(parallelism);
+    }
+
     /**
      * Helper method to find which person or persons has/have the highest out-degree.
      * @return people who have the highest out-degree. 
@@ -92,10 +115,10 @@ public class GraphAnalysis {
         Person maxInPerson = graph.getVertices().iterator().next();
         maxPersonHash.put(maxInPerson, maxNumInArcs); 
         for (Person p: graph.getVertices()) {
-            if (graph.getPredecessors(p).size()>maxPersonHash.get(maxInPerson)) {
+            if (graph.getInDegree(p)>maxPersonHash.get(maxInPerson)) {
                 //set new person-degrees into max person hash if their in-degrees is higher than current
                 maxInPerson = p;
-                maxNumInArcs = graph.getPredecessors(p).size();
+                maxNumInArcs = graph.getInDegree(p);
                 maxPersonHash.clear();
                 maxPersonHash.put(maxInPerson, maxNumInArcs);
             }
@@ -111,20 +134,20 @@ public class GraphAnalysis {
      * @return the Person with max number of in-degrees
      */
     private Person getMaxWoman() {
-        //Create a vector of all women in the dataset
+        //Create a vector of all women in the dataset from the gender bitmap index
+        PersonTable people = graphReader.getPersonTable();
+        BitSet women = people.select("gender", "Female");
         Vector<Person> allWomen = new Vector<Person>();
-        for (Person p: graph.getVertices()) {
-            if (p.getData("gender").equals("Female")){
-                allWomen.add(p); //add person to allWomen if their gender is Female
-            }
+        for (int id = women.nextSetBit(0); id >= 0; id = women.nextSetBit(id + 1)) {
+            allWomen.add(people.getPerson(id)); //add person to allWomen, since their gender is Female
         }
         
         Person maxWoman = allWomen.firstElement(); //set random female person as maxWoman
         int maxDegrees = 0; //initialize max degrees
         for (Person p: allWomen) {
-            if (graph.getPredecessors(p).size()>maxDegrees) {
+            if (graph.getInDegree(p)>maxDegrees) {
                 maxWoman = p;
-                maxDegrees = graph.getPredecessors(p).size();
+                maxDegrees = graph.getInDegree(p);
             }
         }
         return maxWoman; 
@@ -140,12 +163,12 @@ public class GraphAnalysis {
     private int getNumMenGreaterThan(int maxWomanInDegrees) {
         //intialize number of men
         int numMenGreater = 0;
-        for (Person p: graph.getVertices()) {
-            if (p.getData("gender").equals("Male")) { 
-                if (graph.getPredecessors(p).size()>maxWomanInDegrees) {
-                    //increment numMenGreater if the current man has greater in-degrees than maximum woman
-                    numMenGreater+=1; 
-                }
+        PersonTable people = graphReader.getPersonTable();
+        BitSet men = people.select("gender", "Male");
+        for (int id = men.nextSetBit(0); id >= 0; id = men.nextSetBit(id + 1)) {
+            if (graph.getInDegree(people.getPerson(id))>maxWomanInDegrees) {
+                //increment numMenGreater if the current man has greater in-degrees than maximum woman
+                numMenGreater+=1; 
             }
         }
         return numMenGreater;
@@ -161,20 +184,18 @@ public class GraphAnalysis {
         Person person1 = graphReader.getNameMap().get(p1);
         Person person2 = graphReader.getNameMap().get(p2);
 
-        //Initialize shortestPathLength to large number
-        int shortestPathLength = Integer.MAX_VALUE;
-        //Initialize shortestPath to random path(in this case, path to the person herself)
-        LinkedList<Person> shortestPath = graph.breadthFirstSearch(person1).getFirst();
-
-        LinkedList<LinkedList<Person>> allPaths = graph.breadthFirstSearch(person1);
-        for (LinkedList<Person> path: allPaths) {
-            //System.out.println("The path looks like this: " + path);
-            if (path.contains(person2)) {
-                if (path.size()<shortestPathLength) {
-                    shortestPathLength = path.size();
-                    shortestPath = path;
-                }
-            }
+        LinkedList<Person> shortestPath;
+        if (parallelBfs != null) {
+            //the path in the BFS tree from person1, which is the same tree as the sequential search builds
+            shortestPath = graph.search(person1, parallelBfs).getPath(person2);
+        } else {
+            //Bidirectional search that meets in the middle between person1 and person2
+            shortestPath = graph.shortestPath(person1, person2).getPath();
+        }
+        if (shortestPath == null) {
+            //person2 is unreachable: fall back to the path to the person herself
+            shortestPath = new LinkedList<Person>();
+            shortestPath.add(person1);
         }
         //format this path to names only, rather than person objects
         Vector<String> pathNames = new Vector<String>();
@@ -211,88 +232,180 @@ public class GraphAnalysis {
      * @return the people that are farthest people from the given person
      */
     private LinkedList<String> getFarthestPeople(String originPerson) throws IOException {
-        //Create the Person objects from the string names
-        Person startPerson = graphReader.getNameMap().get(originPerson);
-        //Initialize information for the longest path people, to be filled in after
-        int longestPathLength = 0;
+        Person origin = graphReader.getNameMap().get(originPerson);
+        if (parallelBfs != null) {
+            //level-synchronous search on the worker threads, which reaches the people in the same order
+            return getFarthestPeople(graph.search(origin, parallelBfs));
+        }
+        //a single origin is searched with the frontier-queue BFS, which only visits the people it reaches
+        return getFarthestPeople(graph.search(origin));
+    }
+
+    /**
+     * Helper method to find the people reached last by a breadth-first search
+     * @param search the search from the origin person
+     * @return the names of the people farthest from the origin person, in the order the search reached them
+     */
+    private LinkedList<String> getFarthestPeople(BfsResult<Person> search) {
         LinkedList<String> longestPathPeople = new LinkedList<String>();
-        //Iterate through all paths from given origin person, and compare the length of each path with the longest path length so far 
-        LinkedList<LinkedList<Person>> allPaths = graph.breadthFirstSearch(startPerson);
-        for (LinkedList<Person> path: allPaths) {
-            //update or maintain the longest path length so far
-            if (path.size()>=longestPathLength) {
-                longestPathLength = path.size();
-            }
+        int last = search.getNumReached() - 1;
+        int longestPathLength = search.getDistance(search.getReachedId(last));
+        //the reached people are in order of distance, so the farthest ones come last
+        for (int i = last; i >= 0 && search.getDistance(search.getReachedId(i)) == longestPathLength; i--) {
+            longestPathPeople.addFirst(search.getGraph().getVertex(search.getReachedId(i)).getData("name"));
+        }
+        return longestPathPeople;
+    }
+
+    /**
+     * Helper method to find the farthest people from each of many people at once
+     * (64 origins are searched together, so this works for every person in the graph)
+     * @param originPeople the people from whom we are trying to find the farthest people
+     * @return each origin person's name mapped to the names of the people farthest from them
+     */
+    private Hashtable<String, LinkedList<String>> getFarthestPeople(Iterable<String> originPeople) {
+        //Create the Person objects from the string names
+        Vector<Person> startPeople = new Vector<Person>();
+        for (String name: originPeople) {
+            startPeople.add(graphReader.getNameMap().get(name));
         }
-        //Find people who are exactly the longest path length's distance away from the origin person,
-        //and add the names of those people to the output longestPathPeople
-        for (LinkedList<Person> path: allPaths) {
-            if (path.size() == longestPathLength) {
-                longestPathPeople.add(path.getLast().getData("name"));
+        MultiSourceBfs<Person> search = graph.multiSourceSearch(startPeople);
+        Hashtable<String, LinkedList<String>> farthestPeople = new Hashtable<String, LinkedList<String>>();
+        for (int k = 0; k < search.getNumSources(); k++) {
+            //format the farthest people to output only their names, rather than entire Person objects
+            LinkedList<String> longestPathPeople = new LinkedList<String>();
+            for (Person p: search.getFarthest(k)) {
+                longestPathPeople.add(p.getData("name"));
             }
+            farthestPeople.put(search.getSource(k).getData("name"), longestPathPeople);
         }
-        return longestPathPeople;
+        return farthestPeople;
     }
     
+    /**
+     * Helper method to get the group statistics (fractions, in-group link fractions, representation
+     * indices and arc counts) of every value of a field at once. They are computed in one parallel pass
+     * over the graph the first time a field is asked for, and reused afterwards.
+     * @param dataField the categorical field in the data set that we are examining (e.g. "gender")
+     * @return the statistics of every group of that field
+     */
+    private GroupStats getGroupStats(String dataField) {
+        if (!groupStatsByField.containsKey(dataField)) {
+            groupStatsByField.put(dataField, new GroupStats(graph.freeze(), graphReader.getPersonTable(), dataField));
+        }
+        return groupStatsByField.get(dataField);
+    }
+
     /**
      * Helper method to find the expected in-group link fraction for given group (fraction of all nodes which are part of a given group)
-     * @param dataField type the field in the data set that we are examining, and the specified type within that field (e.g. "gender", "Female)
+     * @param dataField type the categorical field in the data set that we are examining, and the specified type within that field (e.g. "gender", "Female)
      * @return the fraction of all nodes which are part of a given group
      */
     private double getFraction(String dataField, String type) {
-        //Find total number of people in the graph
-        int total = graph.getNumVertices();
-        //System.out.println("The total is " + total);
-        //Create a vector to filter for the specificed type only (e.g. "Female" or "ARTS")
-        Vector<Person> allWithinType = new Vector<Person>();
-        for (Person p: graph.getVertices()) {
-            if (p.getData(dataField).equals(type)){
-                allWithinType.add(p);
-            }
-        }
-        //Get amount of people in that type
-        int numOfType = allWithinType.size();
-        //System.out.println("The number of this type is " + numOfType);
-        //Divide amount by total to get the final fraction
-        double outFraction = (double) numOfType / (double) total;
-        return outFraction;
+        return getGroupStats(dataField).getNodeFraction(type);
     }
 
      /**
      * Helper method to find the average in-group link fraction across the whole given group 
      * (meaning, the fraction of links on that page which go to other pages in the group)
-     * @param dataField type the field in the data set that we are examining, and the specified type within that field (e.g. "gender", "Female)
+     * @param dataField type the categorical field in the data set that we are examining, and the specified type within that field (e.g. "gender", "Female)
      * @return the averaged in-group fraction
      */
     private double getAverageInGroupLinkFractions(String dataField, String type) {
-        Hashtable<Person, Double> hashes = new Hashtable<Person, Double>(); //make a hashtable later used to map people to their fractions
-        for (Person p: graph.getVertices()) {
-            int totalConnections = graph.getSuccessors(p).size();
-            int count = 0; //initialize the number of successors who are within the same group as the current person to 0
-            double inGroupLinkFraction;
-            if (p.getData(dataField).equals(type)){
-                for (Person successor: graph.getSuccessors(p)) {
-                    if (successor.getData(dataField).equals(type)) {
-                        count += 1; //increment count if the successor is within the same group as the current person
-                    }
-                }
-                inGroupLinkFraction = (double) count / (double) totalConnections;
-                //System.out.println("The in group link fraction for current person is: " + inGroupLinkFraction);
-                hashes.put(p, inGroupLinkFraction); //store the person and their corresponding fraction 
+        return getGroupStats(dataField).getAverageInGroupLinkFraction(type);
+    }
+
+    /**
+     * Exports the out-degree and in-degree of every person as a CSV file with the columns
+     * name, out_degree, in_degree.
+     * @param filepath the file to write (it is created or overwritten)
+     * @throws IOException  if an exception occurred when writing the file
+     */
+    public void exportDegrees(String filepath) throws IOException {
+        CsrGraph<Person> snapshot = graph.freeze();
+        try (CsvAppender out = new CsvWriter().append(new File(filepath), StandardCharsets.UTF_8)) {
+            out.appendLine("name", "out_degree", "in_degree");
+            for (int id = 0; id < snapshot.getNumVertices(); id++) {
+                out.appendField(snapshot.getVertex(id).getData("name"));
+                out.appendField(snapshot.getOutDegree(id));
+                out.appendField(snapshot.getInDegree(id));
+                out.endLine();
             }
         }
-        double totalofFractions = 0;
-        //System.out.println("the fractions are: " + hashes.values());
-        for (double fraction: hashes.values()) {
-            if (!(Double.isNaN(fraction))) {
-                //System.out.println("current fraction: " + fraction);
-                totalofFractions = totalofFractions + fraction;
+    }
+
+    /**
+     * Exports the number of connections within each country (see getNumConnectionsWithinEachCountry)
+     * as a CSV file with the columns country, connections.
+     * @param filepath the file to write (it is created or overwritten)
+     * @throws IOException  if an exception occurred when writing the file
+     */
+    public void exportCountryCounts(String filepath) throws IOException {
+        try (CsvAppender out = new CsvWriter().append(new File(filepath), StandardCharsets.UTF_8)) {
+            out.appendLine("country", "connections");
+            for (Map.Entry<String, Integer> entry: getNumConnectionsWithinEachCountry().entrySet()) {
+                out.appendField(entry.getKey());
+                out.appendField(entry.getValue().intValue());
+                out.endLine();
+            }
+        }
+    }
+
+    /**
+     * Exports the distance from a given person to every person reachable from them as a CSV file
+     * with the columns name, distance, in breadth-first order.
+     * @param originPerson the name of the person the distances are measured from
+     * @param filepath the file to write (it is created or overwritten)
+     * @throws IOException  if an exception occurred when writing the file
+     * @throws IllegalArgumentException  if no person has the given name
+     */
+    public void exportDistances(String originPerson, String filepath) throws IOException {
+        Person origin = graphReader.getNameMap().get(originPerson);
+        if (origin == null) {
+            throw new IllegalArgumentException("Unknown person: " + originPerson);
+        }
+        CsrGraph<Person> snapshot = graph.freeze();
+        BfsResult<Person> search = snapshot.search(snapshot.getId(origin));
+        try (CsvAppender out = new CsvWriter().append(new File(filepath), StandardCharsets.UTF_8)) {
+            out.appendLine("name", "distance");
+            for (int i = 0; i < search.getNumReached(); i++) {
+                int id = search.getReachedId(i);
+                out.appendField(snapshot.getVertex(id).getData("name"));
+                out.appendField(search.getDistance(id));
+                out.endLine();
+            }
+        }
+    }
+
+    /**
+     * Exports the arcs between members of a group (e.g. "gender", "Female") as a CSV file with
+     * the columns from_name, to_name, like the edges files of the dataset.
+     * @param dataField type the categorical field and the value that both ends of an arc must have
+     * @param filepath the file to write (it is created or overwritten)
+     * @throws IOException  if an exception occurred when writing the file
+     */
+    public void exportEdges(String dataField, String type, String filepath) throws IOException {
+        CsrGraph<Person> snapshot = graph.freeze();
+        //select the group's members once, by vertex id of the snapshot
+        BitSet members = new BitSet(snapshot.getNumVertices());
+        for (int id = 0; id < snapshot.getNumVertices(); id++) {
+            if (type.equals(snapshot.getVertex(id).getData(dataField))) {
+                members.set(id);
+            }
+        }
+        try (CsvAppender out = new CsvWriter().append(new File(filepath), StandardCharsets.UTF_8)) {
+            out.appendLine("from_name", "to_name");
+            for (int id = members.nextSetBit(0); id >= 0; id = members.nextSetBit(id + 1)) {
+                for (int i = 0; i < snapshot.getOutDegree(id); i++) {
+                    int successor = snapshot.getSuccessor(id, i);
+                    if (members.get(successor)) {
+                        out.appendField(snapshot.getVertex(id).getData("name"));
+                        out.appendField(snapshot.getVertex(successor).getData("name"));
+                        out.endLine();
+                    }
+                }
             }
         }
-        //System.out.println("total of fractions: " + totalofFractions);
-        double avgInGroupLinkFraction = totalofFractions/hashes.size();
-        //System.out.println("THE AVERAGE IS : " + avgInGroupLinkFraction);
-        return avgInGroupLinkFraction;
     }
 
     /**
@@ -326,7 +439,7 @@ public class GraphAnalysis {
         Reader testerGraphReader =  new Reader("datasets/pantheon_nodes_1000.csv", "datasets/pantheon_edges_1000.csv");
         //Reader testerGraphReader =  new Reader("datasets/pantheon_nodes_all.csv", "datasets/pantheon_edges_all.csv");
         AdjListsGraph<Person> testerGraph = testerGraphReader.getGraph();
-        int numInDegrees = testerGraph.getPredecessors(g.getMaxWoman()).size();
+        int numInDegrees = testerGraph.getInDegree(g.getMaxWoman());
         
         System.out.println("\n(4a) The woman with highest in-degree is: " 
             + g.getMaxWoman().getData("name") + ", with " + numInDegrees + " in-degrees.");
@@ -339,13 +452,14 @@ public class GraphAnalysis {
         System.out.println("and I think there is a possible positive correlation between the level of connectedness of people within a country");
         System.out.println("and the degree to which knowledge, information, and ideas sharing happens within that country.");
         
+        Hashtable<String, Integer> countriesStats = g.getNumConnectionsWithinEachCountry();
         System.out.println("\nOUTPUT STATS on the number of connections within each country:\n-->" 
-              + g.getNumConnectionsWithinEachCountry());
+              + countriesStats);
         System.out.println("\nPARTICULAR INSIGHTS on specific countries that I am interested in:\n"
-            + "-->United States has " + (g.getNumConnectionsWithinEachCountry().get("United States")+g.getNumConnectionsWithinEachCountry().get("UNITED STATES")) + " connections\n"
-            + "-->United Kingdom has " + (g.getNumConnectionsWithinEachCountry().get("United Kingdom")+g.getNumConnectionsWithinEachCountry().get("UNITED KINGDOM")) + " connections\n"
-            + "-->China has " + (g.getNumConnectionsWithinEachCountry().get("China")+g.getNumConnectionsWithinEachCountry().get("CHINA")) + " connections\n"
-            + "-->Uganda has " + g.getNumConnectionsWithinEachCountry().get("Uganda")+ " connection\n");
+            + "-->United States has " + (countriesStats.get("United States")+countriesStats.get("UNITED STATES")) + " connections\n"
+            + "-->United Kingdom has " + (countriesStats.get("United Kingdom")+countriesStats.get("UNITED KINGDOM")) + " connections\n"
+            + "-->China has " + (countriesStats.get("China")+countriesStats.get("CHINA")) + " connections\n"
+            + "-->Uganda has " + countriesStats.get("Uganda")+ " connection\n");
         
         System.out.println("*Note: this dataset of people connections is most likely biased towards Western countries since it features Wikipedia, a Western source.");
         System.out.println("Thus Western countries are expected to have a skewed-higher number of connections relative to the rest of countries.\n");
@@ -354,13 +468,15 @@ public class GraphAnalysis {
         System.out.println("\n--------------------------------------------------STEP  2: Finding shortest paths between nodes-----------------------------------------------");
         
         //1. Find the shortest path between "Madeleine Albright" '59 and "J. R. R. Tolkien". 
+        Vector<String> albrightTolkienPath = g.getShortestPath("Madeleine Albright", "J. R. R. Tolkien");
         System.out.println("\n(1a)The shortest path between Madeleine Albright'59 and J.R.R. Tolkien is:\n"
-            + g.getShortestPath("Madeleine Albright", "J. R. R. Tolkien") 
-            + ".This path is " + (g.getShortestPath("Madeleine Albright", "J. R. R. Tolkien").size()-1) + " steps.");
+            + albrightTolkienPath 
+            + ".This path is " + (albrightTolkienPath.size()-1) + " steps.");
         
+        Vector<String> gatesKingPath = g.getShortestPath("Bill Gates", "Stephen King");
         System.out.println("\n(1b) Pair of my choice is Bill Gates and Stephen King. The shortest path between Bill Gates and Stephen King is:\n"
-            + g.getShortestPath("Bill Gates", "Stephen King")
-            + ".This path is " + (g.getShortestPath("Bill Gates", "Stephen King").size()-1) + " steps.");
+            + gatesKingPath
+            + ".This path is " + (gatesKingPath.size()-1) + " steps.");
         
         //2.What person or persons are farthest away from Secretary Albright?
         System.out.println("\n(2)The farthest person(s) from Madeleine Albright'59 is/are:\n"
@@ -386,9 +502,10 @@ public class GraphAnalysis {
         System.out.println("Male: " + g.getAverageInGroupLinkFractions("gender","Male"));
 
         System.out.println("\n(3b) Representation indices for each gender:");
-        double repIndexFemale = g.getAverageInGroupLinkFractions("gender","Female")/(g.getFraction("gender","Female")); 
+        GroupStats genderStats = g.getGroupStats("gender");
+        double repIndexFemale = genderStats.getRepresentationIndex("Female"); 
         System.out.println("Female: " + repIndexFemale);
-        double repIndexMale = g.getAverageInGroupLinkFractions("gender","Male")/(g.getFraction("gender","Male"));
+        double repIndexMale = genderStats.getRepresentationIndex("Male");
         System.out.println("Male: " + repIndexMale);
         
         String[] domains = new String[] {"INSTITUTIONS","EXPLORATION","ARTS","SCIENCE & TECHNOLOGY","SPORTS","BUSINESS & LAW","HUMANITIES","PUBLIC FIGURE"};
@@ -407,7 +524,7 @@ public class GraphAnalysis {
 
         System.out.println("\n(4c) Representation indices for each domain");
         for (int i=0; i<domains.length; i++) {
-            double repIndex = g.getAverageInGroupLinkFractions("domain",domains[i])/(g.getFraction("domain",domains[i])); 
+            double repIndex = g.getGroupStats("domain").getRepresentationIndex(domains[i]); 
             System.out.println(domains[i] + ": " + repIndex);
         }
 
@@ -425,5 +542,11 @@ public class GraphAnalysis {
             "is an extreme outlier: people within exploration domain are \n25x more likely to link in-group (whereas the average for " + 
             "other groups is around 4x). There is not enough information on why this is, but it would be interesting \nto learn about the " + 
             "characteristics of this “exploration” field which makes the field so much more tightly connected.");
+
+        //Export derived tables as CSV files: (UNCOMMENT LINES BELOW TO RUN)
+        //g.exportDegrees("degrees.csv");
+        //g.exportCountryCounts("country_connections.csv");
+        //g.exportDistances("Madeleine Albright", "albright_distances.csv");
+        //g.exportEdges("gender", "Female", "female_edges.csv");
     }
 }
@@ -0,0 +1,340 @@
+/**
+ * filename: GraphSnapshot.java
+ * description: Compact binary snapshot of the graph a Reader builds from a
+ *              nodes file and an edges file, so that later runs can skip
+ *              parsing the CSVs. It holds the attribute columns of the
+ *              Persons (as ids into one dictionary of distinct Strings,
+ *              stored as UTF-8), the arcs in CSR form (offsets and
+ *              targets by vertex id, successors in the order they were added)
+ *              and the counts of the edges that were read and dropped.
+ *
+ * A snapshot is keyed by the size, modification time and a checksum of both
+ * source files and is only used while all of them match. The checksum covers
+ * evenly spaced samples of each file rather than all of it, so that checking
+ * the key stays cheap for files of many GB. Snapshots are memory-mapped when
+ * read; they are limited to 2 GB.
+ *
+ * File layout (big-endian):
+ *   int magic, int version, long[6] key,
+ *   int numPeople, int numStrings, int numArcs,
+ *   long numRows, long unresolvedFrom, long unresolvedTo, long numDropped, int numSamples,
+ *   int[numStrings + 1] string offsets into the UTF-8 bytes,
+ *   int[FIELDS.length][numPeople] string ids per column (-1 for null),
+ *   int[numSamples] string ids of the sampled unknown names,
+ *   int[numPeople + 1] arc offsets, int[numArcs] arc targets,
+ *   byte[] UTF-8 bytes of all strings.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+public class GraphSnapshot {
+
+    private static final int MAGIC = 0x50475331; // "PGS1"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 6 * 8 + 3 * 4 + 4 * 8 + 4;
+
+    /** Number and size of the samples of a source file that go into its checksum. */
+    private static final int SAMPLES = 16;
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    private final PersonTable table;
+    private final EdgeIngestion edges;
+
+    /**
+     * Creates a snapshot of the given Persons and arcs.
+     * @param table the Persons; row r is vertex id r
+     * @param edges the finished ingestion of the edges between them
+     */
+    public GraphSnapshot(PersonTable table, EdgeIngestion edges) {
+        this.table = table;
+        this.edges = edges;
+    }
+
+    /**
+     * Getter method for the Persons.
+     * @return the column store whose row r is vertex id r.
+     */
+    public PersonTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * Getter method for the arcs and the edge counts.
+     * @return the finished ingestion; see EdgeIngestion.restore for the order of predecessors.
+     */
+    public EdgeIngestion getEdges() {
+        return this.edges;
+    }
+
+    /**
+     * Returns the file that holds the snapshot of the given sources, next to the nodes file.
+     */
+    public static File getFile(String nodesFilepath, String edgesFilepath) {
+        File nodes = new File(nodesFilepath);
+        return new File(nodes.getAbsoluteFile().getParentFile(),
+            nodes.getName() + "+" + new File(edgesFilepath).getName() + ".snapshot");
+    }
+
+    /**
+     * Computes the key of a snapshot: the size, modification time and sampled checksum of
+     * every source file.
+     * @throws IOException if a source file cannot be read.
+     */
+    public static long[] getKey(String... sourceFilepaths) throws IOException {
+        long[] key = new long[sourceFilepaths.length * 3];
+        for (int i = 0; i < sourceFilepaths.length; i++) {
+            File file = new File(sourceFilepaths[i]);
+            key[i * 3] = file.length();
+            key[i * 3 + 1] = file.lastModified();
+            key[i * 3 + 2] = checksum(file);
+        }
+        return key;
+    }
+
+    /**
+     * CRC32C of SAMPLES blocks of SAMPLE_SIZE bytes spread evenly over the file, including
+     * its first and its last bytes; small files are checksummed completely.
+     */
+    private static long checksum(File file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            long size = channel.size();
+            boolean small = size <= (long) SAMPLES * SAMPLE_SIZE;
+            ByteBuffer buf = ByteBuffer.allocate(SAMPLE_SIZE);
+            for (int i = 0; small ? (long) i * SAMPLE_SIZE < size : i < SAMPLES; i++) {
+                // the last sample of a large file ends at its last byte
+                long pos = small ? (long) i * SAMPLE_SIZE : i * ((size - SAMPLE_SIZE) / (SAMPLES - 1));
+                if (!small && i == SAMPLES - 1) {
+                    pos = size - SAMPLE_SIZE;
+                }
+                buf.clear();
+                while (buf.hasRemaining() && channel.read(buf, pos + buf.position()) > 0) {
+                    // fill the sample
+                }
+                buf.flip();
+                crc.update(buf);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the snapshot in the given file if its key matches.
+     * @return the snapshot, or null if the file does not exist, belongs to other
+     *         sources or versions of them, or cannot be read.
+     */
+    public static GraphSnapshot read(File file, long[] key) {
+        if (!file.isFile() || file.length() > Integer.MAX_VALUE) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                return null;
+            }
+            for (int i = 0; i < 6; i++) {
+                if (buf.getLong() != (i < key.length ? key[i] : 0L)) {
+                    return null;
+                }
+            }
+            int numPeople = buf.getInt();
+            int numStrings = buf.getInt();
+            int numArcs = buf.getInt();
+            long numRows = buf.getLong();
+            long unresolvedFrom = buf.getLong();
+            long unresolvedTo = buf.getLong();
+            long numDropped = buf.getLong();
+            int numSamples = buf.getInt();
+
+            IntBuffer ints = buf.asIntBuffer();
+            int[] stringOffsets = new int[numStrings + 1];
+            ints.get(stringOffsets);
+            int[][] columns = new int[PersonTable.FIELDS.length][numPeople];
+            for (int[] column : columns) {
+                ints.get(column);
+            }
+            int[] sampleIds = new int[numSamples];
+            ints.get(sampleIds);
+            int[] arcOffsets = new int[numPeople + 1];
+            ints.get(arcOffsets);
+            int[] arcTargets = new int[numArcs];
+            ints.get(arcTargets);
+
+            // decode every distinct String once
+            int bytesStart = buf.position() + ints.position() * 4;
+            byte[] bytes = new byte[stringOffsets[numStrings]];
+            buf.position(bytesStart);
+            buf.get(bytes);
+            String[] strings = new String[numStrings];
+            for (int s = 0; s < numStrings; s++) {
+                strings[s] = new String(bytes, stringOffsets[s], stringOffsets[s + 1] - stringOffsets[s],
+                    StandardCharsets.UTF_8);
+            }
+
+            PersonTable table = new PersonTable(numPeople);
+            String[] values = new String[PersonTable.FIELDS.length];
+            for (int row = 0; row < numPeople; row++) {
+                for (int col = 0; col < values.length; col++) {
+                    int id = columns[col][row];
+                    values[col] = id < 0 ? null : strings[id];
+                }
+                table.add(values);
+            }
+            List<String> samples = new ArrayList<String>(numSamples);
+            for (int id : sampleIds) {
+                samples.add(strings[id]);
+            }
+            return new GraphSnapshot(table, EdgeIngestion.restore(arcOffsets, arcTargets, numRows,
+                unresolvedFrom, unresolvedTo, numDropped, samples));
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException
+                 | IllegalArgumentException | NegativeArraySizeException e) {
+            // a truncated or otherwise damaged snapshot is parsed again
+            return null;
+        }
+    }
+
+    /**
+     * Writes this snapshot to the given file under the given key. The file is replaced
+     * atomically where the file system allows it, so a reader never sees half a snapshot.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file, long[] key) throws IOException {
+        int numPeople = this.table.size();
+        int numColumns = PersonTable.FIELDS.length;
+
+        // one dictionary of the distinct values of all columns
+        Dictionary dictionary = new Dictionary();
+        int[][] columns = new int[numColumns][numPeople];
+        for (int col = 0; col < numColumns; col++) {
+            for (int row = 0; row < numPeople; row++) {
+                String value = this.table.get(row, col);
+                columns[col][row] = value == null ? -1 : dictionary.getId(value);
+            }
+        }
+        List<String> samples = this.edges.getUnresolvedSamples();
+        int[] sampleIds = new int[samples.size()];
+        for (int i = 0; i < sampleIds.length; i++) {
+            sampleIds[i] = dictionary.getId(samples.get(i));
+        }
+        int[] offsets = this.edges.getOffsets();
+        int[] targets = this.edges.getTargets();
+        int numStrings = dictionary.size();
+        long size = HEADER_SIZE
+            + 4L * (numStrings + 1 + (long) numColumns * numPeople + sampleIds.length + numPeople + 1
+                + targets.length)
+            + dictionary.bytes.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + size + " bytes is larger than 2 GB");
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (int i = 0; i < 6; i++) {
+                out.writeLong(i < key.length ? key[i] : 0L);
+            }
+            out.writeInt(numPeople);
+            out.writeInt(numStrings);
+            out.writeInt(targets.length);
+            out.writeLong(this.edges.getNumRows());
+            out.writeLong(this.edges.getNumUnresolvedFrom());
+            out.writeLong(this.edges.getNumUnresolvedTo());
+            out.writeLong(this.edges.getNumUnresolved());
+            out.writeInt(sampleIds.length);
+            for (int s = 0; s <= numStrings; s++) {
+                out.writeInt(dictionary.offsets[s]);
+            }
+            for (int[] column : columns) {
+                for (int id : column) {
+                    out.writeInt(id);
+                }
+            }
+            for (int id : sampleIds) {
+                out.writeInt(id);
+            }
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (int target : targets) {
+                out.writeInt(target);
+            }
+            out.write(dictionary.bytes.array(), 0, dictionary.bytes.size());
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** The distinct Strings of a snapshot, numbered in the order they are first met. */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+        /** String s is bytes[offsets[s]] to bytes[offsets[s + 1] - 1]. */
+        int[] offsets = new int[16];
+        final ByteArrayBuilder bytes = new ByteArrayBuilder();
+
+        int getId(String value) {
+            Integer id = this.ids.get(value);
+            if (id == null) {
+                id = this.ids.size();
+                this.ids.put(value, id);
+                if (id + 1 >= this.offsets.length) {
+                    this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+                }
+                this.bytes.append(value.getBytes(StandardCharsets.UTF_8));
+                this.offsets[id + 1] = this.bytes.size();
+            }
+            return id;
+        }
+
+        int size() {
+            return this.ids.size();
+        }
+    }
+
+    /** A growable byte array. */
+    private static final class ByteArrayBuilder {
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        void append(byte[] b) {
+            if (this.size + b.length > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes,
+                    Math.max(this.bytes.length * 2, this.size + b.length));
+            }
+            System.arraycopy(b, 0, this.bytes, this.size, b.length);
+            this.size += b.length;
+        }
+
+        byte[] array() {
+            return this.bytes;
+        }
+
+        int size() {
+            return this.size;
+        }
+    }
+
+}
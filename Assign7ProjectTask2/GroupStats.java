@@ -0,0 +1,220 @@
+/**
+ * filename: GroupStats.java
+ * description: Per-group statistics for every value of one categorical
+ *              Person attribute, computed in a single pass over the
+ *              vertices and arcs of a graph snapshot. The pass is split
+ *              into ranges of vertex ids that run in parallel.
+ *
+ * For each value (group) it records:
+ *   - the number of people in the group and the fraction of all people it is,
+ *   - the average in-group link fraction (for each member, the fraction of
+ *     its successors in the same group; members without successors count
+ *     in the denominator but add nothing to the sum),
+ *   - the representation index (average in-group link fraction / fraction),
+ *   - the number of arcs leaving the group's members and how many stay in the group.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+public class GroupStats {
+
+    /** Vertex ids handled by a single task. */
+    private static final int VERTICES_PER_TASK = 4096;
+
+    private final String field;
+    private final StringDictionary dictionary;
+    private final int numVertices;
+    private final int[] members;
+    private final long[] outArcs;
+    private final long[] inGroupArcs;
+    private final double[] fractionSums;
+
+    /**
+     * Computes the statistics of every value of field over the given snapshot.
+     * @param graph snapshot whose vertices all belong to table
+     * @param table column store of the Persons in the graph
+     * @param field a dictionary-encoded field, e.g. "gender" or "domain"
+     * @throws IllegalArgumentException if field is not dictionary-encoded.
+     */
+    public GroupStats(CsrGraph<Person> graph, PersonTable table, String field) {
+        this.field = field;
+        this.dictionary = table.getDictionary(PersonTable.getColumn(field));
+        this.numVertices = graph.getNumVertices();
+
+        final int[] codes = new int[this.numVertices];
+        for (int id = 0; id < this.numVertices; id++) {
+            codes[id] = graph.getVertex(id).getCode(field);
+        }
+        final Partial total = new Task(graph, codes, this.dictionary.size(), 0, this.numVertices).invoke();
+        this.members = total.members;
+        this.outArcs = total.outArcs;
+        this.inGroupArcs = total.inGroupArcs;
+        this.fractionSums = total.fractionSums;
+    }
+
+    /**
+     * Getter method for the field the people were grouped by.
+     * @return the field name, e.g. "gender".
+     */
+    public String getField() {
+        return this.field;
+    }
+
+    /**
+     * Getter method for the groups.
+     * @return every value of the field that at least one person in the graph has.
+     */
+    public List<String> getValues() {
+        final List<String> values = new ArrayList<String>();
+        for (int code = 0; code < this.members.length; code++) {
+            if (this.members[code] > 0) {
+                values.add(this.dictionary.getValue(code));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the number of people in the group, 0 for an unknown value.
+     */
+    public int getNodeCount(String value) {
+        final int code = this.dictionary.getCode(value);
+        return code == StringDictionary.NOT_FOUND ? 0 : this.members[code];
+    }
+
+    /**
+     * @return the fraction of all people in the graph who are in the group.
+     */
+    public double getNodeFraction(String value) {
+        return (double) getNodeCount(value) / (double) this.numVertices;
+    }
+
+    /**
+     * @return the average over the group's members of the fraction of their links
+     *         that go to other members; NaN for an empty or unknown group.
+     */
+    public double getAverageInGroupLinkFraction(String value) {
+        final int code = this.dictionary.getCode(value);
+        if (code == StringDictionary.NOT_FOUND) {
+            return Double.NaN;
+        }
+        return this.fractionSums[code] / this.members[code];
+    }
+
+    /**
+     * @return how many times more likely a member is to link in-group than to a random article.
+     */
+    public double getRepresentationIndex(String value) {
+        return getAverageInGroupLinkFraction(value) / getNodeFraction(value);
+    }
+
+    /**
+     * @return the number of arcs that start at a member of the group.
+     */
+    public long getOutArcs(String value) {
+        final int code = this.dictionary.getCode(value);
+        return code == StringDictionary.NOT_FOUND ? 0 : this.outArcs[code];
+    }
+
+    /**
+     * @return the number of arcs between two members of the group.
+     */
+    public long getInGroupArcs(String value) {
+        final int code = this.dictionary.getCode(value);
+        return code == StringDictionary.NOT_FOUND ? 0 : this.inGroupArcs[code];
+    }
+
+    /**
+     * Returns a String with one line per group.
+     * @return a String representation of this table.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(this.field);
+        sb.append(": value, nodes, fraction, avg in-group link fraction, representation index, out arcs, in-group arcs");
+        for (String value : getValues()) {
+            sb.append("\n" + value + ", " + getNodeCount(value) + ", " + getNodeFraction(value)
+                + ", " + getAverageInGroupLinkFraction(value) + ", " + getRepresentationIndex(value)
+                + ", " + getOutArcs(value) + ", " + getInGroupArcs(value));
+        }
+        return sb.toString();
+    }
+
+    /** Sums of one range of vertices, indexed by code. */
+    private static final class Partial {
+        final int[] members;
+        final long[] outArcs;
+        final long[] inGroupArcs;
+        final double[] fractionSums;
+
+        Partial(int numCodes) {
+            this.members = new int[numCodes];
+            this.outArcs = new long[numCodes];
+            this.inGroupArcs = new long[numCodes];
+            this.fractionSums = new double[numCodes];
+        }
+
+        /** Adds other into this; the order of merging is fixed, so sums do not depend on threads. */
+        Partial add(Partial other) {
+            for (int code = 0; code < this.members.length; code++) {
+                this.members[code] += other.members[code];
+                this.outArcs[code] += other.outArcs[code];
+                this.inGroupArcs[code] += other.inGroupArcs[code];
+                this.fractionSums[code] += other.fractionSums[code];
+            }
+            return this;
+        }
+    }
+
+    /** Aggregates vertex ids [from, to), splitting the range in half until it is small enough. */
+    private static final class Task extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph<Person> graph;
+        private final int[] codes;
+        private final int numCodes;
+        private final int from;
+        private final int to;
+
+        Task(CsrGraph<Person> graph, int[] codes, int numCodes, int from, int to) {
+            this.graph = graph;
+            this.codes = codes;
+            this.numCodes = numCodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (this.to - this.from > VERTICES_PER_TASK) {
+                final int middle = (this.from + this.to) >>> 1;
+                final Task left = new Task(this.graph, this.codes, this.numCodes, this.from, middle);
+                final Task right = new Task(this.graph, this.codes, this.numCodes, middle, this.to);
+                left.fork();
+                final Partial rightPartial = right.compute();
+                return left.join().add(rightPartial);
+            }
+            final Partial partial = new Partial(this.numCodes);
+            for (int id = this.from; id < this.to; id++) {
+                final int code = this.codes[id];
+                final int degree = this.graph.getOutDegree(id);
+                int inGroup = 0;
+                for (int i = 0; i < degree; i++) {
+                    if (this.codes[this.graph.getSuccessor(id, i)] == code) {
+                        inGroup++;
+                    }
+                }
+                partial.members[code]++;
+                partial.outArcs[code] += degree;
+                partial.inGroupArcs[code] += inGroup;
+                if (degree > 0) {
+                    partial.fractionSums[code] += (double) inGroup / (double) degree;
+                }
+            }
+            return partial;
+        }
+    }
+
+}
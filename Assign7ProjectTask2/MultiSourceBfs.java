@@ -0,0 +1,171 @@
+/********************************************************************
+ * MultiSourceBfs.java @version 2019.04.11
+ * Breadth-first searches from many sources at once over a CsrGraph,
+ * in the style of MS-BFS: up to 64 sources advance together, each
+ * vertex keeps one long whose bit i says "reached by source i".
+ * For every source it records the eccentricity (distance to the
+ * farthest reachable vertex), the farthest vertices and a histogram
+ * of distances.
+ *
+ * KNOWN FEATURES/BUGS:
+ * Unreachable vertices are ignored, so the eccentricity is taken over
+ * the vertices each source can reach.
+ ********************************************************************/
+
+import java.util.*;
+
+public class MultiSourceBfs<T> {
+
+    /** Number of sources that are searched together, one per bit of a long */
+    private static final int BATCH_SIZE = 64;
+
+    private final CsrGraph<T> graph;
+    private final int[] sourceIds;
+    private final int[] eccentricity;
+    /** farthest[k] holds the ids of the vertices farthest from source k */
+    private final int[][] farthest;
+    /** histogram[k][d] is the number of vertices at distance d from source k */
+    private final int[][] histogram;
+
+    /**
+     * Runs one breadth-first search per source, 64 sources at a time.
+     *
+     * @param graph snapshot to search
+     * @param sourceIds ids of the vertices to search from
+     */
+    public MultiSourceBfs(CsrGraph<T> graph, int[] sourceIds) {
+        this.graph = graph;
+        this.sourceIds = sourceIds.clone();
+        this.eccentricity = new int[sourceIds.length];
+        this.farthest = new int[sourceIds.length][];
+        this.histogram = new int[sourceIds.length][];
+
+        int n = graph.getNumVertices();
+        long[] seen = new long[n];
+        long[] visit = new long[n];
+        long[] visitNext = new long[n];
+        for (int start = 0; start < sourceIds.length; start += BATCH_SIZE) {
+            int end = Math.min(start + BATCH_SIZE, sourceIds.length);
+            Arrays.fill(seen, 0L);
+            Arrays.fill(visit, 0L);
+            runBatch(start, end, seen, visit, visitNext);
+        }
+    }
+
+    /**
+     * Searches from sourceIds[start..end) together. Bit i of seen[v] says that
+     * source start+i has reached v; visit holds the bits of the current level.
+     */
+    private void runBatch(int start, int end, long[] seen, long[] visit, long[] visitNext) {
+        int n = graph.getNumVertices();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int batch = end - start;
+
+        // vertices found at the current level, per source of the batch
+        int[][] level = new int[batch][];
+        int[] levelSize = new int[batch];
+        int[][] counts = new int[batch][];
+        for (int i = 0; i < batch; i++) {
+            level[i] = new int[4];
+            counts[i] = new int[4];
+        }
+
+        // level 0: every source reaches itself
+        for (int i = 0; i < batch; i++) {
+            int s = sourceIds[start + i];
+            seen[s] |= 1L << i;
+            visit[s] |= 1L << i;
+        }
+        int distance = 0;
+        boolean active = true;
+        while (active) {
+            Arrays.fill(levelSize, 0);
+            for (int v = 0; v < n; v++) {
+                long bits = visit[v];
+                while (bits != 0) {
+                    int i = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (levelSize[i] == level[i].length) {
+                        level[i] = Arrays.copyOf(level[i], level[i].length * 2);
+                    }
+                    level[i][levelSize[i]++] = v;
+                }
+            }
+            for (int i = 0; i < batch; i++) {
+                if (levelSize[i] > 0) {
+                    // this level is the farthest one reached by source i so far
+                    int k = start + i;
+                    eccentricity[k] = distance;
+                    farthest[k] = Arrays.copyOf(level[i], levelSize[i]);
+                    if (distance == counts[i].length) {
+                        counts[i] = Arrays.copyOf(counts[i], counts[i].length * 2);
+                    }
+                    counts[i][distance] = levelSize[i];
+                }
+            }
+
+            // advance all sources one level: a vertex is reached by every source that
+            // reaches one of its predecessors and has not reached it yet
+            Arrays.fill(visitNext, 0L);
+            for (int u = 0; u < n; u++) {
+                long bits = visit[u];
+                if (bits == 0) {
+                    continue;
+                }
+                for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                    visitNext[targets[j]] |= bits;
+                }
+            }
+            active = false;
+            for (int v = 0; v < n; v++) {
+                long next = visitNext[v] & ~seen[v];
+                visit[v] = next;
+                if (next != 0) {
+                    seen[v] |= next;
+                    active = true;
+                }
+            }
+            distance++;
+        }
+
+        for (int i = 0; i < batch; i++) {
+            histogram[start + i] = Arrays.copyOf(counts[i], eccentricity[start + i] + 1);
+        }
+    }
+
+    /** Returns the number of sources searched. */
+    public int getNumSources() {
+        return sourceIds.length;
+    }
+
+    /** Returns the k-th source vertex. */
+    public T getSource(int k) {
+        return graph.getVertex(sourceIds[k]);
+    }
+
+    /** Returns the distance from the k-th source to the vertices farthest from it. */
+    public int getEccentricity(int k) {
+        return eccentricity[k];
+    }
+
+    /**
+     * Returns the vertices farthest from the k-th source, in increasing id order.
+     * A source that reaches no other vertex is its own farthest vertex.
+     */
+    public LinkedList<T> getFarthest(int k) {
+        LinkedList<T> result = new LinkedList<T>();
+        for (int id : farthest[k]) {
+            result.add(graph.getVertex(id));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a histogram of distances from the k-th source: element d is
+     * the number of vertices exactly d hops away (element 0 is the source).
+     */
+    public int[] getDistanceHistogram(int k) {
+        return histogram[k].clone();
+    }
+}
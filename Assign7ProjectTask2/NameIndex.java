@@ -0,0 +1,310 @@
+/**
+ * filename: NameIndex.java
+ * description: Maps the names of people to their vertex ids. The names are
+ *              stored one after another as UTF-8 in a single byte array and
+ *              found by open addressing (linear probing) over a table of
+ *              entry numbers, with the hash of every entry cached next to
+ *              its int value. Lookups neither decode names nor allocate.
+ *              Names can also be listed by prefix, through a sorted array
+ *              of entry numbers that is built on first use.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class NameIndex {
+
+    /** Returned by get for names that are not in the index. */
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** UTF-8 bytes of all names; entry e is arena[starts[e]] to arena[starts[e + 1] - 1]. */
+    private byte[] arena;
+    private int[] starts;
+    /** String.hashCode of the name of each entry. */
+    private int[] hashes;
+    private int[] values;
+    private int size;
+    /** Entry number + 1 of each slot, 0 for an empty slot; its length is a power of 2. */
+    private int[] slots;
+    /** Entry numbers sorted by name; null until a prefix lookup needs it. */
+    private int[] sorted;
+
+    public NameIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize the number of names the index holds without growing
+     */
+    public NameIndex(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        this.arena = new byte[capacity * 16];
+        this.starts = new int[capacity + 1];
+        this.hashes = new int[capacity];
+        this.values = new int[capacity];
+        // at most half of the slots are used
+        this.slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    /**
+     * Maps name to value, replacing the value it had if it was already in the index.
+     * @return the previous value of name, or NOT_FOUND if it is new.
+     * @throws NullPointerException if name is null.
+     */
+    public int put(String name, int value) {
+        int hash = name.hashCode();
+        int slot = find(name, hash);
+        if (this.slots[slot] != 0) {
+            int entry = this.slots[slot] - 1;
+            int previous = this.values[entry];
+            this.values[entry] = value;
+            return previous;
+        }
+        if (this.size == this.values.length) {
+            growEntries();
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int start = this.starts[this.size];
+        if (start + bytes.length > this.arena.length) {
+            this.arena = Arrays.copyOf(this.arena, Math.max(this.arena.length * 2, start + bytes.length));
+        }
+        System.arraycopy(bytes, 0, this.arena, start, bytes.length);
+        this.starts[this.size + 1] = start + bytes.length;
+        this.hashes[this.size] = hash;
+        this.values[this.size] = value;
+        this.size++;
+        this.slots[slot] = this.size;
+        this.sorted = null;
+        if (this.size * 2 > this.slots.length) {
+            rehash();
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Getter method for the value of a name.
+     * @return the value of name, or NOT_FOUND if name is null or not in the index.
+     */
+    public int get(String name) {
+        if (name == null) {
+            return NOT_FOUND;
+        }
+        int entry = this.slots[find(name, name.hashCode())] - 1;
+        return entry < 0 ? NOT_FOUND : this.values[entry];
+    }
+
+    /**
+     * Returns true if name is in the index.
+     */
+    public boolean contains(String name) {
+        return get(name) != NOT_FOUND;
+    }
+
+    /**
+     * Getter method for the number of names.
+     * @return the number of entries in this index.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Getter method for the name of an entry; entries are numbered in the order
+     * their names were first put.
+     * @return the name of entry.
+     */
+    public String getName(int entry) {
+        checkEntry(entry);
+        return new String(this.arena, this.starts[entry], this.starts[entry + 1] - this.starts[entry],
+            StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Getter method for the value of an entry.
+     * @return the value of entry.
+     */
+    public int getValue(int entry) {
+        checkEntry(entry);
+        return this.values[entry];
+    }
+
+    /**
+     * Returns the names that start with prefix, in the order of String.compareTo,
+     * e.g. for autocompletion.
+     * @param limit the largest number of names to return
+     * @return at most limit names.
+     */
+    public List<String> getNamesWithPrefix(String prefix, int limit) {
+        List<String> names = new ArrayList<String>();
+        int[] order = getSorted();
+        for (int i = lowerBound(order, prefix); i < order.length && names.size() < limit; i++) {
+            String name = getName(order[i]);
+            if (!name.startsWith(prefix)) {
+                break;
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the values of the names that start with prefix, in the order of
+     * getNamesWithPrefix.
+     * @param limit the largest number of values to return
+     * @return at most limit values.
+     */
+    public int[] getValuesWithPrefix(String prefix, int limit) {
+        int[] order = getSorted();
+        int from = lowerBound(order, prefix);
+        int to = from;
+        while (to < order.length && to - from < limit && getName(order[to]).startsWith(prefix)) {
+            to++;
+        }
+        int[] result = new int[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = this.values[order[i]];
+        }
+        return result;
+    }
+
+    /** Returns the slot of name: the slot that holds it, or the empty slot where it would go. */
+    private int find(String name, int hash) {
+        int mask = this.slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (this.slots[slot] != 0) {
+            int entry = this.slots[slot] - 1;
+            if (this.hashes[entry] == hash && matches(entry, name)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Returns true if the UTF-8 bytes of entry are the encoding of name, without encoding it. */
+    private boolean matches(int entry, String name) {
+        int pos = this.starts[entry];
+        int end = this.starts[entry + 1];
+        int length = name.length();
+        for (int i = 0; i < length; i++) {
+            int c = name.charAt(i);
+            if (c < 0x80) {
+                if (pos >= end || this.arena[pos++] != c) {
+                    return false;
+                }
+                continue;
+            }
+            if (Character.isHighSurrogate((char) c) && i + 1 < length
+                    && Character.isLowSurrogate(name.charAt(i + 1))) {
+                c = Character.toCodePoint((char) c, name.charAt(++i));
+            } else if (Character.isSurrogate((char) c)) {
+                // String.getBytes replaces a lone surrogate with '?'
+                c = '?';
+            }
+            int n = c < 0x80 ? 1 : c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+            if (pos + n > end) {
+                return false;
+            }
+            switch (n) {
+                case 1:
+                    if (this.arena[pos] != c) {
+                        return false;
+                    }
+                    break;
+                case 2:
+                    if (this.arena[pos] != (byte) (0xc0 | (c >> 6))
+                            || this.arena[pos + 1] != (byte) (0x80 | (c & 0x3f))) {
+                        return false;
+                    }
+                    break;
+                case 3:
+                    if (this.arena[pos] != (byte) (0xe0 | (c >> 12))
+                            || this.arena[pos + 1] != (byte) (0x80 | ((c >> 6) & 0x3f))
+                            || this.arena[pos + 2] != (byte) (0x80 | (c & 0x3f))) {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (this.arena[pos] != (byte) (0xf0 | (c >> 18))
+                            || this.arena[pos + 1] != (byte) (0x80 | ((c >> 12) & 0x3f))
+                            || this.arena[pos + 2] != (byte) (0x80 | ((c >> 6) & 0x3f))
+                            || this.arena[pos + 3] != (byte) (0x80 | (c & 0x3f))) {
+                        return false;
+                    }
+                    break;
+            }
+            pos += n;
+        }
+        return pos == end;
+    }
+
+    /** Mixes the high bits of a String hash into the low bits that pick the slot. */
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private void growEntries() {
+        int capacity = this.values.length * 2;
+        this.starts = Arrays.copyOf(this.starts, capacity + 1);
+        this.hashes = Arrays.copyOf(this.hashes, capacity);
+        this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    /** Doubles the slot table, reinserting the entries by their cached hashes. */
+    private void rehash() {
+        this.slots = new int[this.slots.length * 2];
+        int mask = this.slots.length - 1;
+        for (int entry = 0; entry < this.size; entry++) {
+            int slot = spread(this.hashes[entry]) & mask;
+            while (this.slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = entry + 1;
+        }
+    }
+
+    private int[] getSorted() {
+        if (this.sorted == null) {
+            String[] names = new String[this.size];
+            Integer[] order = new Integer[this.size];
+            for (int entry = 0; entry < this.size; entry++) {
+                names[entry] = getName(entry);
+                order[entry] = entry;
+            }
+            Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+            int[] result = new int[this.size];
+            for (int i = 0; i < this.size; i++) {
+                result[i] = order[i];
+            }
+            this.sorted = result;
+        }
+        return this.sorted;
+    }
+
+    /** Returns the position in order of the first name that is not less than key. */
+    private int lowerBound(int[] order, String key) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getName(order[middle]).compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void checkEntry(int entry) {
+        if (entry < 0 || entry >= this.size) {
+            throw new IndexOutOfBoundsException("Entry " + entry + " of " + this.size);
+        }
+    }
+
+}
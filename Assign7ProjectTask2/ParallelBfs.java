@@ -0,0 +1,308 @@
+/********************************************************************
+ * ParallelBfs.java @version 2019.04.11
+ * Level-synchronous parallel breadth-first search over a CsrGraph.
+ * Each level is split into ranges of the frontier that run on a
+ * ForkJoinPool. The search goes top-down (frontier vertices push to
+ * their successors) while the frontier is small and switches to
+ * bottom-up (unvisited vertices look for a predecessor in the frontier)
+ * when it is large, as in Beamer's direction-optimizing BFS.
+ *
+ * KNOWN FEATURES/BUGS:
+ * The result is the same as that of CsrGraph.search, whatever the
+ * number of threads and the direction: every vertex gets as parent the
+ * frontier vertex that the sequential queue would have dequeued first,
+ * and every level is listed in the order the queue would have held it.
+ * For that, a bottom-up vertex looks at all its predecessors rather
+ * than stopping at the first one in the frontier.
+ ********************************************************************/
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelBfs {
+
+    /** Go bottom-up once the frontier has more than 1/ALPHA of the unexplored arcs */
+    private static final int ALPHA = 14;
+    /** Go back top-down once the frontier has fewer than 1/BETA of the vertices */
+    private static final int BETA = 24;
+    /** Number of 64-vertex words of the visited bitset a bottom-up task works on */
+    private static final int WORDS_PER_TASK = 16;
+    /** Number of frontier vertices a top-down task works on */
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final int TOP_DOWN = 0;
+    private static final int BOTTOM_UP = 1;
+    private static final int COUNT = 2;
+    private static final int PLACE = 3;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a search that uses one thread per available processor.
+     */
+    public ParallelBfs() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a search that uses the given number of threads.
+     *
+     * @param parallelism number of worker threads, at least 1
+     */
+    public ParallelBfs(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /** Returns the number of worker threads. */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /** Stops the worker threads. The search cannot be used afterwards. */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Runs a breadth-first search from startId. The parents, distances and
+     * order of the reached vertices are those of CsrGraph.search(startId).
+     *
+     * @param graph snapshot to search
+     * @param startId Start point for the BFS
+     * @return the parent and distance arrays of the search
+     */
+    public <T> BfsResult<T> search(CsrGraph<T> graph, int startId) {
+        int n = graph.getNumVertices();
+        int words = (n + 63) >>> 6;
+        int[] offsets = graph.getOffsets();
+
+        Level level = new Level(graph, words);
+        level.distance[startId] = 0;
+        level.order[0] = startId;
+        level.rank[startId] = 0;
+        level.visited[startId >>> 6] |= 1L << startId;
+
+        long frontierArcs = graph.getOutDegree(startId);
+        long unexploredArcs = graph.getNumArcs() - frontierArcs;
+        boolean bottomUp = false;
+        level.start = 0;
+        level.end = 1;
+
+        while (level.end > level.start) {
+            int frontierSize = level.end - level.start;
+            if (!bottomUp && frontierArcs > unexploredArcs / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < n / BETA) {
+                bottomUp = false;
+            }
+            level.depth++;
+            int blocks = (frontierSize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+            // find the parent of every vertex of the next level ...
+            if (bottomUp) {
+                pool.invoke(new LevelTask(level, BOTTOM_UP, 0, words));
+            } else {
+                pool.invoke(new LevelTask(level, TOP_DOWN, 0, blocks));
+            }
+            // ... then list the next level in queue order: by parent, and
+            // by position in the parent's successors
+            pool.invoke(new LevelTask(level, COUNT, 0, blocks));
+            int end = level.end;
+            for (int b = 0; b < blocks; b++) {
+                int count = level.blockStarts[b];
+                level.blockStarts[b] = end;
+                end += count;
+            }
+            pool.invoke(new LevelTask(level, PLACE, 0, blocks));
+
+            // seal the level: the new frontier becomes visited
+            frontierArcs = 0;
+            for (int i = level.end; i < end; i++) {
+                int v = level.order[i];
+                level.visited[v >>> 6] |= 1L << v;
+                frontierArcs += offsets[v + 1] - offsets[v];
+            }
+            unexploredArcs -= frontierArcs;
+            level.start = level.end;
+            level.end = end;
+        }
+
+        return new BfsResult<T>(graph, startId, level.parent, level.distance, level.order,
+            level.end, true);
+    }
+
+    /**
+     * State shared by the tasks of one search. The frontier is
+     * order[start..end); visited only changes between levels.
+     * parentRank[v] is the rank in order of the parent v gets, which is
+     * the lowest rank among its predecessors in the frontier.
+     */
+    private static final class Level {
+        final int[] offsets;
+        final int[] targets;
+        final int[] inOffsets;
+        final int[] sources;
+        final int numVertices;
+        final long[] visited;
+        final int[] order;
+        /** rank[v] is the position of v in order, -1 while v is not reached */
+        final int[] rank;
+        final int[] parent;
+        final int[] distance;
+        final AtomicIntegerArray parentRank;
+        /** Number, then first position in order, of the vertices each block discovers */
+        final int[] blockStarts;
+        int start;
+        int end;
+        int depth;
+
+        Level(CsrGraph<?> graph, int words) {
+            offsets = graph.getOffsets();
+            targets = graph.getTargets();
+            inOffsets = graph.getInOffsets();
+            sources = graph.getSources();
+            numVertices = graph.getNumVertices();
+            visited = new long[words];
+            order = new int[numVertices];
+            rank = new int[numVertices];
+            parent = new int[numVertices];
+            distance = new int[numVertices];
+            Arrays.fill(rank, -1);
+            Arrays.fill(parent, -1);
+            Arrays.fill(distance, -1);
+            parentRank = new AtomicIntegerArray(numVertices);
+            for (int v = 0; v < numVertices; v++) {
+                parentRank.set(v, Integer.MAX_VALUE);
+            }
+            blockStarts = new int[(numVertices + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        }
+    }
+
+    /**
+     * Runs one phase of a level for the blocks of the frontier (or, bottom-up,
+     * the bitset words) [from, to), splitting the range in half until it is
+     * small enough.
+     */
+    private static final class LevelTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Level level;
+        private final int phase;
+        private final int from;
+        private final int to;
+
+        LevelTask(Level level, int phase, int from, int to) {
+            this.level = level;
+            this.phase = phase;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int grain = phase == BOTTOM_UP ? WORDS_PER_TASK : 1;
+            if (to - from > grain) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LevelTask(level, phase, from, middle),
+                    new LevelTask(level, phase, middle, to));
+                return;
+            }
+            switch (phase) {
+                case TOP_DOWN:
+                    topDown();
+                    break;
+                case BOTTOM_UP:
+                    bottomUp();
+                    break;
+                default:
+                    for (int b = from; b < to; b++) {
+                        placeBlock(b, phase == PLACE);
+                    }
+                    break;
+            }
+        }
+
+        /** Frontier vertices in the range offer their rank to their unvisited successors. */
+        private void topDown() {
+            int end = Math.min(level.end, level.start + to * BLOCK_SIZE);
+            for (int i = level.start + from * BLOCK_SIZE; i < end; i++) {
+                int u = level.order[i];
+                for (int j = level.offsets[u]; j < level.offsets[u + 1]; j++) {
+                    int v = level.targets[j];
+                    if ((level.visited[v >>> 6] & (1L << v)) != 0) {
+                        continue;
+                    }
+                    // keep the lowest rank, so the result does not depend on scheduling
+                    int current = level.parentRank.get(v);
+                    while (i < current && !level.parentRank.compareAndSet(v, current, i)) {
+                        current = level.parentRank.get(v);
+                    }
+                }
+            }
+        }
+
+        /** Unvisited vertices in the range take the predecessor of lowest rank in the frontier. */
+        private void bottomUp() {
+            for (int w = from; w < to; w++) {
+                long unvisited = ~level.visited[w];
+                if (w == level.visited.length - 1 && (level.numVertices & 63) != 0) {
+                    unvisited &= (1L << level.numVertices) - 1;
+                }
+                while (unvisited != 0) {
+                    int v = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                    unvisited &= unvisited - 1;
+                    int best = Integer.MAX_VALUE;
+                    int last = level.inOffsets[v + 1];
+                    for (int j = level.inOffsets[v]; j < last && best > level.start; j++) {
+                        int r = level.rank[level.sources[j]];
+                        if (r >= level.start && r < level.end && r < best) {
+                            best = r;
+                        }
+                    }
+                    if (best != Integer.MAX_VALUE) {
+                        // this task is the only one that looks at v during a bottom-up level
+                        level.parentRank.set(v, best);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Walks the successors of the frontier vertices of block b in order, as the
+         * sequential queue does, and meets every vertex they discover once. Counts
+         * them, or with place, lists them from blockStarts[b] on.
+         */
+        private void placeBlock(int b, boolean place) {
+            int pos = level.blockStarts[b];
+            int count = 0;
+            int end = Math.min(level.end, level.start + (b + 1) * BLOCK_SIZE);
+            for (int i = level.start + b * BLOCK_SIZE; i < end; i++) {
+                int u = level.order[i];
+                for (int j = level.offsets[u]; j < level.offsets[u + 1]; j++) {
+                    int v = level.targets[j];
+                    // only the block of v's parent ever touches v
+                    if (level.parentRank.get(v) != i) {
+                        continue;
+                    }
+                    if (!place && level.distance[v] == -1) {
+                        level.distance[v] = level.depth;
+                        count++;
+                    } else if (place && level.parent[v] == -1) {
+                        level.parent[v] = u;
+                        level.order[pos] = v;
+                        level.rank[v] = pos;
+                        pos++;
+                    }
+                }
+            }
+            if (!place) {
+                level.blockStarts[b] = count;
+            }
+        }
+    }
+}
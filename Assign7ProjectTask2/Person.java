@@ -1,19 +1,29 @@
 /**
  * filename: Person.java
- * description: Initializes Row class
+ * description: A person of the dataset (a node of the graph). The attributes
+ *              are not stored in the Person: it is a view of one row of a
+ *              PersonTable, the column store that a Reader fills, and its
+ *              vertex id is that row. A Person made with the public
+ *              constructor gets a one-row table of its own and no vertex id.
+ *              Persons are equal if all their attributes are equal.
  * date: 02/26/19
  * @author Angelina Li
- *
- * NOTE: Do NOT modify this class.
  */
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Objects;
 
 
 public class Person {
     
-    private final Map<String, String> personData;
+    /** The attributes live in a column store; this Person is one row of it. */
+    private final PersonTable table;
+    private final int row;
+
+    /** The attributes never change, so their hash is computed once. */
+    private final int hash;
+
+    /** Dense id assigned by the Reader that interned this Person, -1 if none. */
+    private final int vertexId;
 
     public Person(
         String id,
@@ -26,16 +36,35 @@ public class Person {
         String industry,
         String domain
     ) {
-        this.personData = new HashMap<String, String>();
-        this.personData.put("id", id);
-        this.personData.put("name", name);
-        this.personData.put("birthCity", birthCity);
-        this.personData.put("birthState", birthState);
-        this.personData.put("countryName", countryName);
-        this.personData.put("gender", gender);
-        this.personData.put("occupation", occupation);
-        this.personData.put("industry", industry);
-        this.personData.put("domain", domain);
+        this(PersonTable.singleRow(id, name, birthCity, birthState, countryName,
+            gender, occupation, industry, domain), 0, -1);
+    }
+
+    /**
+     * Constructor for the Person view of a row of a PersonTable, whose vertex id is the row.
+     */
+    Person(PersonTable table, int row) {
+        this(table, row, row);
+    }
+
+    private Person(PersonTable table, int row, int vertexId) {
+        this.table = table;
+        this.row = row;
+        this.vertexId = vertexId;
+        // same value as the hashCode of a Map from field names to values
+        int h = 0;
+        for (int col = 0; col < PersonTable.FIELDS.length; col++) {
+            h += PersonTable.FIELDS[col].hashCode() ^ Objects.hashCode(table.get(row, col));
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Getter method for the dense vertex id.
+     * @return the id the Reader gave this Person (0, 1, 2, ... in file order), or -1.
+     */
+    public int getVertexId() {
+        return this.vertexId;
     }
 
     /**
@@ -43,19 +72,45 @@ public class Person {
      * @return requested data value for this Person instance.
      */
     public final String getData(String variable) {
-        return this.personData.get(variable);
+        return this.table.get(this.row, PersonTable.getColumn(variable));
+    }
+
+    /**
+     * Getter method for the dictionary code of a categorical data variable
+     * (birthState, countryName, gender, occupation, industry or domain).
+     * Codes can be compared with PersonTable.getCode(variable, value) instead of comparing Strings.
+     * @return the code of the requested data value for this Person instance.
+     */
+    public final int getCode(String variable) {
+        return this.table.getCode(this.row, PersonTable.getColumn(variable));
+    }
+
+    /**
+     * Getter method for the table that holds this Person's data.
+     * @return the PersonTable this Person is a row of.
+     */
+    public PersonTable getTable() {
+        return this.table;
     }
 
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) { return true; }
         if ( ! (obj instanceof Person)) { return false; }
         final Person that = (Person) obj;
-        return this.personData.equals(that.personData);
+        // cheap checks first; interned Persons are almost always compared to themselves
+        if (this.hash != that.hash) { return false; }
+        for (int col = 0; col < PersonTable.FIELDS.length; col++) {
+            if (!Objects.equals(this.table.get(this.row, col), that.table.get(that.row, col))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return this.personData.hashCode();
+        return this.hash;
     }
 
     @Override
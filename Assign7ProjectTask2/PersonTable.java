@@ -0,0 +1,278 @@
+/**
+ * filename: PersonTable.java
+ * description: Column-oriented store for the attributes of many Persons.
+ *              Row r holds the Person with vertex id r. Low-cardinality
+ *              columns (birthState, countryName, gender, occupation,
+ *              industry, domain) are dictionary-encoded into short codes;
+ *              id, name and birthCity are kept as plain Strings.
+ *              Every value of an encoded column also has a bitmap index:
+ *              the set of rows with that value, kept as a BitSet.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class PersonTable {
+
+    /** Names of the attributes of a Person, in column order. */
+    public static final String[] FIELDS = {
+        "id", "name", "birthCity", "birthState", "countryName",
+        "gender", "occupation", "industry", "domain"
+    };
+
+    /** Returned by getColumn and getCode for unknown fields and values. */
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Plain columns, null for dictionary-encoded ones. */
+    private final String[][] text;
+    /** Dictionary-encoded columns, null for plain ones. */
+    private final short[][] codes;
+    private final StringDictionary[] dictionaries;
+    /** bitmaps.get(col).get(code) has bit r set iff row r has that code; null for plain columns. */
+    private final List<List<BitSet>> bitmaps;
+    /** The Person view of every row, so each row has exactly one Person. */
+    private Person[] people;
+    private int size;
+
+    public PersonTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public PersonTable(int initialCapacity) {
+        final int capacity = Math.max(initialCapacity, 1);
+        this.text = new String[FIELDS.length][];
+        this.codes = new short[FIELDS.length][];
+        this.dictionaries = new StringDictionary[FIELDS.length];
+        this.bitmaps = new ArrayList<List<BitSet>>(FIELDS.length);
+        for (int col = 0; col < FIELDS.length; col++) {
+            this.bitmaps.add(null);
+            if (isEncoded(col)) {
+                this.codes[col] = new short[capacity];
+                this.dictionaries[col] = new StringDictionary();
+                this.bitmaps.set(col, new ArrayList<BitSet>());
+            } else {
+                this.text[col] = new String[capacity];
+            }
+        }
+        this.people = new Person[capacity];
+    }
+
+    /**
+     * Returns the column index of a field.
+     * @return the column of field, or NOT_FOUND if Persons have no such field.
+     */
+    public static int getColumn(String field) {
+        if (field == null) {
+            return NOT_FOUND;
+        }
+        switch (field) {
+            case "id": return 0;
+            case "name": return 1;
+            case "birthCity": return 2;
+            case "birthState": return 3;
+            case "countryName": return 4;
+            case "gender": return 5;
+            case "occupation": return 6;
+            case "industry": return 7;
+            case "domain": return 8;
+            default: return NOT_FOUND;
+        }
+    }
+
+    /**
+     * Returns true if the values of the given column are stored as dictionary codes.
+     */
+    public static boolean isEncoded(int column) {
+        return column >= 3;
+    }
+
+    /**
+     * Appends a row and returns the Person that views it.
+     * The arguments are in the order of the Person constructor.
+     * @return the Person whose vertex id is the new row.
+     */
+    public Person add(String... values) {
+        final int row = addRow(values);
+        this.people[row] = new Person(this, row);
+        return this.people[row];
+    }
+
+    /**
+     * Returns a table holding just the given values, for a Person that is
+     * not part of a Reader's table.
+     */
+    static PersonTable singleRow(String... values) {
+        final PersonTable table = new PersonTable(1);
+        table.addRow(values);
+        return table;
+    }
+
+    private int addRow(String... values) {
+        if (values.length != FIELDS.length) {
+            throw new IllegalArgumentException(
+                "Expected " + FIELDS.length + " values but got " + values.length);
+        }
+        if (this.size == this.people.length) {
+            grow();
+        }
+        final int row = this.size;
+        for (int col = 0; col < FIELDS.length; col++) {
+            if (isEncoded(col)) {
+                final int code = this.dictionaries[col].encode(values[col]);
+                this.codes[col][row] = (short) code;
+                final List<BitSet> columnBitmaps = this.bitmaps.get(col);
+                if (code == columnBitmaps.size()) {
+                    columnBitmaps.add(new BitSet());
+                }
+                columnBitmaps.get(code).set(row);
+            } else {
+                this.text[col][row] = values[col];
+            }
+        }
+        this.size++;
+        return row;
+    }
+
+    private void grow() {
+        final int capacity = this.people.length * 2;
+        for (int col = 0; col < FIELDS.length; col++) {
+            if (isEncoded(col)) {
+                this.codes[col] = Arrays.copyOf(this.codes[col], capacity);
+            } else {
+                this.text[col] = Arrays.copyOf(this.text[col], capacity);
+            }
+        }
+        this.people = Arrays.copyOf(this.people, capacity);
+    }
+
+    /**
+     * Getter method for the number of rows.
+     * @return the number of Persons in this table.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Getter method for the Person of a row.
+     * @return the Person whose vertex id is row.
+     */
+    public Person getPerson(int row) {
+        checkRow(row);
+        return this.people[row];
+    }
+
+    /**
+     * Getter method for a single value.
+     * @return the value of the given column in the given row, null for an unknown column.
+     */
+    public String get(int row, int column) {
+        if (column < 0 || column >= FIELDS.length) {
+            return null;
+        }
+        if (isEncoded(column)) {
+            return this.dictionaries[column].getValue(this.codes[column][row]);
+        }
+        return this.text[column][row];
+    }
+
+    /**
+     * Getter method for the dictionary code of a single value.
+     * @return the code of the given encoded column in the given row.
+     * @throws IllegalArgumentException if the column is not dictionary-encoded.
+     */
+    public int getCode(int row, int column) {
+        return this.codes[checkEncoded(column)][row];
+    }
+
+    /**
+     * Returns the code that a value has in the given field, so that filters
+     * can compare codes instead of Strings.
+     * @return the code of value, or NOT_FOUND if no row has that value.
+     * @throws IllegalArgumentException if field is not dictionary-encoded.
+     */
+    public int getCode(String field, String value) {
+        return this.dictionaries[checkEncoded(getColumn(field))].getCode(value);
+    }
+
+    /**
+     * Returns the rows whose field has the given value, e.g. all women for
+     * ("gender", "Female"). The result is a copy and may be modified.
+     * @return a bitmap with bit r set iff row r has that value.
+     * @throws IllegalArgumentException if field is not dictionary-encoded.
+     */
+    public BitSet select(String field, String value) {
+        final int column = checkEncoded(getColumn(field));
+        final int code = this.dictionaries[column].getCode(value);
+        if (code == StringDictionary.NOT_FOUND) {
+            return new BitSet();
+        }
+        return (BitSet) this.bitmaps.get(column).get(code).clone();
+    }
+
+    /**
+     * Returns the rows that match all the given (field, value) pairs, by AND-ing
+     * their bitmaps, e.g. selectAll("gender", "Female", "domain", "SCIENCE & TECHNOLOGY").
+     * @return a bitmap with bit r set iff row r matches every pair.
+     * @throws IllegalArgumentException if a field is not dictionary-encoded
+     *         or the arguments do not come in pairs.
+     */
+    public BitSet selectAll(String... fieldsAndValues) {
+        if (fieldsAndValues.length == 0 || fieldsAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Expected (field, value) pairs");
+        }
+        final BitSet result = select(fieldsAndValues[0], fieldsAndValues[1]);
+        for (int i = 2; i < fieldsAndValues.length && !result.isEmpty(); i += 2) {
+            final int column = checkEncoded(getColumn(fieldsAndValues[i]));
+            final int code = this.dictionaries[column].getCode(fieldsAndValues[i + 1]);
+            if (code == StringDictionary.NOT_FOUND) {
+                result.clear();
+            } else {
+                result.and(this.bitmaps.get(column).get(code));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of rows whose field has the given value, as a popcount of its bitmap.
+     * @return the size of the group of rows with that value.
+     * @throws IllegalArgumentException if field is not dictionary-encoded.
+     */
+    public int count(String field, String value) {
+        final int column = checkEncoded(getColumn(field));
+        final int code = this.dictionaries[column].getCode(value);
+        if (code == StringDictionary.NOT_FOUND) {
+            return 0;
+        }
+        return this.bitmaps.get(column).get(code).cardinality();
+    }
+
+    /**
+     * Getter method for the dictionary of an encoded column.
+     * @return the dictionary of the given column.
+     * @throws IllegalArgumentException if the column is not dictionary-encoded.
+     */
+    public StringDictionary getDictionary(int column) {
+        return this.dictionaries[checkEncoded(column)];
+    }
+
+    private int checkEncoded(int column) {
+        if (column < 0 || column >= FIELDS.length || !isEncoded(column)) {
+            throw new IllegalArgumentException(
+                "Column " + column + " is not dictionary-encoded");
+        }
+        return column;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= this.size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + this.size);
+        }
+    }
+
+}
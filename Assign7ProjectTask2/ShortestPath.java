@@ -0,0 +1,57 @@
+/********************************************************************
+ * ShortestPath.java @version 2019.04.11
+ * A shortest path between two vertices together with its length
+ * in hops, as returned by a point-to-point search.
+ *
+ * KNOWN FEATURES/BUGS:
+ * When several shortest paths exist, any one of them is returned.
+ ********************************************************************/
+
+import java.util.*;
+
+public class ShortestPath<T> {
+
+    private final T source;
+    private final T target;
+    /** The vertices on the path from source to target, or null if there is none */
+    private final LinkedList<T> path;
+
+    ShortestPath(T source, T target, LinkedList<T> path) {
+        this.source = source;
+        this.target = target;
+        this.path = path;
+    }
+
+    /** Returns the vertex the path starts at. */
+    public T getSource() {
+        return source;
+    }
+
+    /** Returns the vertex the path ends at. */
+    public T getTarget() {
+        return target;
+    }
+
+    /** Returns true if the target can be reached from the source. */
+    public boolean isFound() {
+        return path != null;
+    }
+
+    /** Returns the number of arcs (hops) on the path, -1 if there is no path. */
+    public int getLength() {
+        return path == null ? -1 : path.size() - 1;
+    }
+
+    /** Returns a copy of the vertices on the path, or null if there is no path. */
+    public LinkedList<T> getPath() {
+        return path == null ? null : new LinkedList<T>(path);
+    }
+
+    /**
+     * Returns a string representation of the path.
+     */
+    public String toString() {
+        if (path == null) return "No path from " + source + " to " + target;
+        return path + " (" + getLength() + " hops)";
+    }
+}
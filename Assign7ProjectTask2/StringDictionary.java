@@ -0,0 +1,73 @@
+/**
+ * filename: StringDictionary.java
+ * description: Maps the distinct values of a low-cardinality column to
+ *              small integer codes (0, 1, 2, ... in order of first use)
+ *              so that each value is stored once.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StringDictionary {
+
+    /** Codes are stored in shorts, so a dictionary holds at most this many values. */
+    public static final int MAX_SIZE = Short.MAX_VALUE + 1;
+
+    /** Returned by getCode for values that are not in the dictionary. */
+    public static final int NOT_FOUND = -1;
+
+    private final Map<String, Integer> codes;
+    private final List<String> values;
+
+    public StringDictionary() {
+        this.codes = new HashMap<String, Integer>();
+        this.values = new ArrayList<String>();
+    }
+
+    /**
+     * Returns the code of the given value, adding it to the dictionary if it is new.
+     * @return the code of value.
+     * @throws IllegalStateException if the dictionary already holds MAX_SIZE values.
+     */
+    public int encode(String value) {
+        final Integer code = this.codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (this.values.size() == MAX_SIZE) {
+            throw new IllegalStateException(
+                "Dictionary is full: more than " + MAX_SIZE + " distinct values");
+        }
+        this.codes.put(value, this.values.size());
+        this.values.add(value);
+        return this.values.size() - 1;
+    }
+
+    /**
+     * Getter method for the code of a value.
+     * @return the code of value, or NOT_FOUND if the value was never encoded.
+     */
+    public int getCode(String value) {
+        final Integer code = this.codes.get(value);
+        return code == null ? NOT_FOUND : code;
+    }
+
+    /**
+     * Getter method for the value of a code.
+     * @return the value that was encoded as code.
+     */
+    public String getValue(int code) {
+        return this.values.get(code);
+    }
+
+    /**
+     * Getter method for the number of distinct values.
+     * @return the number of values in this dictionary.
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+}
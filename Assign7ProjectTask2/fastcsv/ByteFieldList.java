@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * The fields of a record read by {@link ByteRowReader}. Fields are kept as byte ranges of
+ * the buffer they were read from and decoded (and unescaped) on first access only. The end
+ * of a quoted field (that may contain escapes) is stored complemented.
+ *
+ * This class is intended for internal use only.
+ */
+final class ByteFieldList extends LazyFieldList {
+
+    private final ByteBuffer buf;
+    private final Charset charset;
+    private final int textDelimiter;
+
+    ByteFieldList(final ByteBuffer buf, final Charset charset, final char textDelimiter,
+                  final int[] bounds, final boolean[] projection) {
+        super(bounds, projection);
+        this.buf = buf;
+        this.charset = charset;
+        this.textDelimiter = textDelimiter;
+    }
+
+    @Override
+    String materialize(final int index) {
+        final int start = bounds[index * 2];
+        final int end = bounds[index * 2 + 1];
+        if (end >= 0) {
+            if (start == end) {
+                return "";
+            }
+            final byte[] bytes = new byte[end - start];
+            final ByteBuffer src = buf.duplicate();
+            src.position(start);
+            src.get(bytes);
+            return new String(bytes, charset);
+        }
+        return unescape(start, ~end);
+    }
+
+    @Override
+    CharSequence window(final int index) {
+        final int end = bounds[index * 2 + 1];
+        // quoted fields have to be unescaped first
+        return end >= 0 ? new ByteWindow(buf, charset, bounds[index * 2], end) : get(index);
+    }
+
+    /**
+     * Returns {@code true} if the given field (projected or not) is empty.
+     */
+    boolean isEmptyField(final int index) {
+        final int start = bounds[index * 2];
+        final int end = bounds[index * 2 + 1];
+        return end >= 0 ? start == end : unescape(start, ~end).isEmpty();
+    }
+
+    /**
+     * Removes the text delimiters of a quoted field by replaying what {@link RowReader} does
+     * with the field's chars. The field is decoded first, since the copy window of a malformed
+     * field is counted in chars and may not end where the quotes are.
+     */
+    private String unescape(final int start, final int end) {
+        final char delim = (char) textDelimiter;
+        CharSequence chars = decode(start, end);
+        final int fieldLen = chars.length();
+        final StringBuilder sb = new StringBuilder(fieldLen);
+        int copyStart = 0;
+        int copyLen = 0;
+        int prevChar = -1;
+        boolean quoteOn = false;
+        boolean nonQuoted = false;
+        boolean quoted = false;
+        for (int pos = 0; pos < fieldLen; pos++) {
+            final char c = chars.charAt(pos);
+            if (quoteOn) {
+                if (c == delim) {
+                    // end of quoted text
+                    quoteOn = false;
+                    if (copyLen > 0) {
+                        chars = cover(chars, start, end, copyStart + copyLen);
+                        sb.append(chars, copyStart, Math.min(copyStart + copyLen, chars.length()));
+                        copyLen = 0;
+                    }
+                    copyStart = pos + 1;
+                } else {
+                    copyLen++;
+                }
+            } else if (c == delim && !nonQuoted) {
+                // quoted text starts
+                quoteOn = quoted = true;
+                if (prevChar == delim) {
+                    // escaped quote
+                    copyLen++;
+                } else {
+                    copyStart = pos + 1;
+                }
+            } else {
+                copyLen++;
+                nonQuoted |= !quoted;
+            }
+            prevChar = c;
+        }
+        if (copyLen > 0) {
+            chars = cover(chars, start, end, copyStart + copyLen);
+            sb.append(chars, copyStart, Math.min(copyStart + copyLen, chars.length()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the chars decoded from the bytes [start, end) of the buffer.
+     */
+    private CharSequence decode(final int start, final int end) {
+        final ByteBuffer src = buf.duplicate();
+        src.position(start);
+        src.limit(end);
+        return charset.decode(src);
+    }
+
+    /**
+     * Returns chars if it has at least length chars, else the chars decoded from start on, like
+     * the chars after a field that {@link RowReader} copies when escaped quotes shift the copy
+     * window of a malformed field past its end. The window is shorter than twice the field, and
+     * a char takes at most 4 bytes.
+     */
+    private CharSequence cover(final CharSequence chars, final int start, final int end,
+                               final int length) {
+        if (length <= chars.length() || end == buf.limit()) {
+            return chars;
+        }
+        return decode(start, (int) Math.min(buf.limit(), end + 4L * (end - start)));
+    }
+
+}
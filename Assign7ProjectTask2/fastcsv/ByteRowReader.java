@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads records straight from bytes - a memory-mapped file or a buffer - instead of
+ * decoding everything to chars first like {@link RowReader}. Only the bounds of every
+ * field are recorded; a projected field is decoded to a String when it is first requested
+ * (see {@link ByteFieldList}). Records and fields are split exactly like {@link RowReader}
+ * does.
+ *
+ * This only works for charsets in which the field separator, text delimiter, CR and LF
+ * are single bytes that never occur inside a multi-byte character - see
+ * {@link #supports(Charset, char, char)}.
+ *
+ * This class is intended for internal use only.
+ */
+final class ByteRowReader implements RecordReader {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private static final int FIELD_MODE_RESET = 0;
+    private static final int FIELD_MODE_QUOTED = 1;
+    private static final int FIELD_MODE_NON_QUOTED = 2;
+
+    private final FileChannel channel;
+    private final long size;
+    private final Charset charset;
+    private final char fieldSeparator;
+    private final char textDelimiter;
+    private int[] bounds = new int[64];
+    private boolean[] projection;
+    private ByteBuffer recordBuf;
+    private int fieldCount;
+    private ByteBuffer buf;
+    private long bufStart;
+    private int bufPos;
+    private int prevChar = -1;
+    private int lines;
+    private boolean finished;
+
+    /**
+     * Reads a file by mapping it into memory. Files larger than 2 GB are mapped in
+     * windows, each of which starts at a record boundary.
+     */
+    ByteRowReader(final FileChannel channel, final Charset charset, final char fieldSeparator,
+                  final char textDelimiter) throws IOException {
+
+        this(channel, charset, fieldSeparator, textDelimiter, 0, channel.size());
+    }
+
+    /**
+     * Reads the bytes of a file from position up to end.
+     */
+    ByteRowReader(final FileChannel channel, final Charset charset, final char fieldSeparator,
+                  final char textDelimiter, final long position, final long end)
+        throws IOException {
+
+        this.channel = channel;
+        this.size = end;
+        this.charset = charset;
+        this.fieldSeparator = fieldSeparator;
+        this.textDelimiter = textDelimiter;
+        map(position);
+    }
+
+    /**
+     * Reads the remaining bytes of the given buffer.
+     */
+    ByteRowReader(final ByteBuffer buf, final Charset charset, final char fieldSeparator,
+                  final char textDelimiter) {
+
+        this.channel = null;
+        this.buf = buf.slice();
+        this.size = this.buf.limit();
+        this.charset = charset;
+        this.fieldSeparator = fieldSeparator;
+        this.textDelimiter = textDelimiter;
+    }
+
+    /**
+     * Returns {@code true} if data in the given charset can be read byte by byte.
+     */
+    static boolean supports(final Charset charset, final char fieldSeparator,
+                            final char textDelimiter) {
+        return (charset.equals(StandardCharsets.UTF_8)
+            || charset.equals(StandardCharsets.US_ASCII)
+            || charset.equals(StandardCharsets.ISO_8859_1))
+            && fieldSeparator < 0x80 && textDelimiter < 0x80;
+    }
+
+    private void map(final long position) throws IOException {
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, position,
+            Math.min(size - position, MAX_WINDOW_SIZE));
+        bufStart = position;
+        bufPos = 0;
+    }
+
+    /**
+     * @return {@code true} if the file continues after the current window
+     */
+    private boolean hasNextWindow() {
+        return channel != null && bufStart + buf.limit() < size;
+    }
+
+    @Override
+    public int readRecord() throws IOException {
+        while (!scanRecord()) {
+            // the record ran past the end of the mapped window, which now starts at the
+            // beginning of the record - scan it again
+        }
+        return fieldCount;
+    }
+
+    @Override
+    public List<String> getFields() {
+        return new ByteFieldList(recordBuf, charset, textDelimiter,
+            Arrays.copyOf(bounds, fieldCount * 2), projection);
+    }
+
+    /*
+     * ugly, performance optimized code begins
+     */
+    private boolean scanRecord() throws IOException {
+        final ByteBuffer localBuf = buf;
+        final int limit = localBuf.limit();
+        final int recordStart = bufPos;
+        final int sep = fieldSeparator;
+        final int delim = textDelimiter;
+        int[] localBounds = bounds;
+        int fieldCount = 0;
+        int pos = recordStart;
+        int fieldStart = pos;
+        int localPrevChar = prevChar;
+        int fieldMode = FIELD_MODE_RESET;
+        boolean quoteOn = false;
+        boolean quoted = false;
+        // copyLen and copied mirror RowReader, whose last field is only kept if it has content
+        int copyLen = 0;
+        boolean copied = false;
+        boolean quotedEmpty = false;
+        int localLines = 1;
+
+        while (true) {
+            if (pos == limit) {
+                if (hasNextWindow()) {
+                    if (recordStart == 0) {
+                        throw new IOException(
+                            "Record at offset " + bufStart + " does not fit into a mapped window");
+                    }
+                    map(bufStart + recordStart);
+                    return false;
+                }
+
+                // end of data
+                finished = true;
+                if (localPrevChar == sep || quotedEmpty || copied || copyLen > 0) {
+                    localBounds = addField(localBounds, fieldCount++, fieldStart, pos, quoted);
+                }
+                break;
+            }
+
+            final int c = localBuf.get(pos++) & 0xFF;
+
+            if (quoteOn) {
+                if (c == delim) {
+                    // end of quoted text
+                    quoteOn = false;
+                    if (copyLen > 0) {
+                        copied = true;
+                        copyLen = 0;
+                    } else {
+                        quotedEmpty = true;
+                    }
+                } else {
+                    if (c == CR || c == LF && localPrevChar != CR) {
+                        localLines++;
+                    }
+                    copyLen++;
+                }
+            } else if (c == sep) {
+                localBounds = addField(localBounds, fieldCount++, fieldStart, pos - 1, quoted);
+                fieldStart = pos;
+                fieldMode = FIELD_MODE_RESET;
+                quoted = copied = quotedEmpty = false;
+                copyLen = 0;
+            } else if (c == delim && (fieldMode & FIELD_MODE_NON_QUOTED) == 0) {
+                // quoted text starts
+                fieldMode = FIELD_MODE_QUOTED;
+                quoteOn = quoted = true;
+                quotedEmpty = false;
+                if (localPrevChar == delim) {
+                    // escaped quote
+                    copyLen++;
+                }
+            } else if (c == CR || c == LF) {
+                localBounds = addField(localBounds, fieldCount++, fieldStart, pos - 1, quoted);
+                localPrevChar = c;
+                if (c == CR) {
+                    // a record ending with CRLF ends after the LF
+                    if (pos == limit && hasNextWindow()) {
+                        map(bufStart + pos);
+                        pos = 0;
+                    }
+                    if (pos < buf.limit() && buf.get(pos) == LF) {
+                        pos++;
+                        localPrevChar = LF;
+                    }
+                }
+                break;
+            } else {
+                copyLen++;
+                if (fieldMode == FIELD_MODE_RESET) {
+                    fieldMode = FIELD_MODE_NON_QUOTED;
+                }
+            }
+
+            localPrevChar = c;
+        }
+
+        // restore fields
+        bufPos = pos;
+        prevChar = localPrevChar;
+        bounds = localBounds;
+        lines = localLines;
+
+        recordBuf = localBuf;
+        this.fieldCount = fieldCount;
+        return true;
+    }
+
+    private static int[] addField(final int[] bounds, final int index, final int start,
+                                  final int end, final boolean quoted) {
+        final int[] b = index * 2 == bounds.length ? Arrays.copyOf(bounds, bounds.length * 2)
+            : bounds;
+        b[index * 2] = start;
+        // quoted fields (that may contain escapes) are marked by a complemented end
+        b[index * 2 + 1] = quoted ? ~end : end;
+        return b;
+    }
+
+    @Override
+    public int getLines() {
+        return lines;
+    }
+
+    @Override
+    public boolean isEmptyRecord() {
+        return fieldCount == 1 && ((ByteFieldList) getFields()).isEmptyField(0);
+    }
+
+    @Override
+    public void setProjection(final boolean[] projection) {
+        this.projection = projection;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    public long getPosition() {
+        return channel != null ? bufStart + bufPos : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A window onto a range of a byte buffer, read as chars one byte at a time. This is only
+ * meaningful for ASCII content such as numbers; {@link #toString()} decodes the bytes with
+ * the charset.
+ *
+ * This class is intended for internal use only.
+ */
+final class ByteWindow implements CharSequence {
+
+    private final ByteBuffer buf;
+    private final Charset charset;
+    private final int start;
+    private final int end;
+
+    ByteWindow(final ByteBuffer buf, final Charset charset, final int start, final int end) {
+        this.buf = buf;
+        this.charset = charset;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= end - start) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length());
+        }
+        return (char) (buf.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(final int from, final int to) {
+        return toString().subSequence(from, to);
+    }
+
+    @Override
+    public String toString() {
+        final byte[] bytes = new byte[end - start];
+        final ByteBuffer src = buf.duplicate();
+        src.position(start);
+        src.get(bytes);
+        return new String(bytes, charset);
+    }
+
+}
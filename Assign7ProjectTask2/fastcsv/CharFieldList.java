@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+/**
+ * The fields of a record read by {@link RowReader}. The (unescaped) chars of all projected
+ * fields are kept in a single array; a field becomes a String on first access only.
+ *
+ * This class is intended for internal use only.
+ */
+final class CharFieldList extends LazyFieldList {
+
+    private static final String EMPTY = "";
+
+    private final char[] chars;
+
+    CharFieldList(final char[] chars, final int[] bounds, final boolean[] projection) {
+        super(bounds, projection);
+        this.chars = chars;
+    }
+
+    @Override
+    String materialize(final int index) {
+        final int start = bounds[index * 2];
+        final int end = bounds[index * 2 + 1];
+        return start == end ? EMPTY : new String(chars, start, end - start);
+    }
+
+    @Override
+    CharSequence window(final int index) {
+        return new CharWindow().set(chars, bounds[index * 2], bounds[index * 2 + 1]);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Finds the next structural character - field separator, text delimiter, CR or LF - in a
+ * char buffer, so that {@link RowReader} can skip the ordinary chars of a field at once.
+ *
+ * {@link #create(char, char)} returns a {@code VectorCharScanner}, which compares a whole
+ * vector of chars at a time, if that class was compiled (it is kept in
+ * {@code incubator/fastcsv}, outside the default build) and the {@code jdk.incubator.vector}
+ * module is available ({@code --add-modules jdk.incubator.vector}), and a scalar scanner
+ * otherwise. Setting the system property {@code fastcsv.scanner} to {@code scalar} forces
+ * the scalar one.
+ *
+ * This class is intended for internal use only.
+ */
+abstract class CharScanner {
+
+    static final char LF = '\n';
+    static final char CR = '\r';
+
+    private static final Constructor<? extends CharScanner> VECTOR_SCANNER = findVectorScanner();
+
+    final char fieldSeparator;
+    final char textDelimiter;
+
+    CharScanner(final char fieldSeparator, final char textDelimiter) {
+        this.fieldSeparator = fieldSeparator;
+        this.textDelimiter = textDelimiter;
+    }
+
+    /**
+     * Returns the index of the first structural character in buf[from, to), or {@code to}
+     * if there is none.
+     */
+    abstract int indexOfStructural(char[] buf, int from, int to);
+
+    /**
+     * Returns the fastest scanner available.
+     */
+    static CharScanner create(final char fieldSeparator, final char textDelimiter) {
+        if (VECTOR_SCANNER != null && !"scalar".equals(System.getProperty("fastcsv.scanner"))) {
+            try {
+                return VECTOR_SCANNER.newInstance(fieldSeparator, textDelimiter);
+            } catch (final ReflectiveOperationException e) {
+                // fall through to the scalar scanner
+            }
+        }
+        return scalar(fieldSeparator, textDelimiter);
+    }
+
+    static CharScanner scalar(final char fieldSeparator, final char textDelimiter) {
+        return new Scalar(fieldSeparator, textDelimiter);
+    }
+
+    /**
+     * Returns the constructor of the vector scanner, or {@code null} if the vector module
+     * is not available. The class is only referenced by name, so that this class loads
+     * without the module.
+     */
+    private static Constructor<? extends CharScanner> findVectorScanner() {
+        try {
+            final Constructor<? extends CharScanner> constructor = Class
+                .forName("fastcsv.VectorCharScanner").asSubclass(CharScanner.class)
+                .getDeclaredConstructor(char.class, char.class);
+            // fail here rather than in create() if the vector classes cannot be linked
+            constructor.newInstance(',', '"').indexOfStructural(new char[1], 0, 1);
+            return constructor;
+        } catch (final ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compares one char at a time.
+     */
+    static final class Scalar extends CharScanner {
+
+        Scalar(final char fieldSeparator, final char textDelimiter) {
+            super(fieldSeparator, textDelimiter);
+        }
+
+        @Override
+        int indexOfStructural(final char[] buf, final int from, final int to) {
+            for (int i = from; i < to; i++) {
+                final char c = buf[i];
+                if (c == fieldSeparator || c == textDelimiter || c == CR || c == LF) {
+                    return i;
+                }
+            }
+            return to;
+        }
+
+    }
+
+}
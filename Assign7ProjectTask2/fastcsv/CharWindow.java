@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+/**
+ * A window onto a range of a char array, which may be moved to another range.
+ *
+ * This class is intended for internal use only.
+ */
+final class CharWindow implements CharSequence {
+
+    private char[] chars;
+    private int start;
+    private int end;
+
+    CharWindow set(final char[] chars, final int start, final int end) {
+        this.chars = chars;
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= end - start) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length());
+        }
+        return chars[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int from, final int to) {
+        if (from < 0 || to > end - start || from > to) {
+            throw new IndexOutOfBoundsException(
+                "Range: [" + from + ", " + to + "), Length: " + length());
+        }
+        return new String(chars, start + from, to - from);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, start, end - start);
+    }
+
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * This is the main class for writing CSV data, line by line and field by field.
+ *
+ * Output is collected in a large {@code char[]} and only handed to the underlying
+ * {@link Writer} or {@link FileChannel} when the buffer is full, on {@link #flush()} and on
+ * {@link #close()}. Numbers are formatted straight into that buffer.
+ *
+ * @author Oliver Siegmar
+ */
+public final class CsvAppender implements Closeable, Flushable {
+
+    private static final int MIN_BUFFER_SIZE = 64;
+    /** Length of Long.MIN_VALUE, the longest long. */
+    private static final int MAX_LONG_LENGTH = 20;
+    private static final char CR = '\r';
+    private static final char LF = '\n';
+
+    private final Writer writer;
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+    private final char[] buf;
+    private final char fieldSeparator;
+    private final char textDelimiter;
+    private final boolean alwaysDelimitText;
+    private final char[] lineDelimiter;
+    /** True if a separator or delimiter may occur in a formatted number. */
+    private final boolean checkNumbers;
+    private int pos;
+    private boolean newline = true;
+
+    CsvAppender(final Writer writer, final int bufferSize, final char fieldSeparator,
+                final char textDelimiter, final boolean alwaysDelimitText,
+                final char[] lineDelimiter) {
+
+        this(writer, null, null, bufferSize, fieldSeparator, textDelimiter, alwaysDelimitText,
+            lineDelimiter);
+    }
+
+    CsvAppender(final FileChannel channel, final Charset charset, final int bufferSize,
+                final char fieldSeparator, final char textDelimiter,
+                final boolean alwaysDelimitText, final char[] lineDelimiter) {
+
+        this(null, channel, charset, bufferSize, fieldSeparator, textDelimiter,
+            alwaysDelimitText, lineDelimiter);
+    }
+
+    private CsvAppender(final Writer writer, final FileChannel channel, final Charset charset,
+                        final int bufferSize, final char fieldSeparator,
+                        final char textDelimiter, final boolean alwaysDelimitText,
+                        final char[] lineDelimiter) {
+
+        this.writer = writer;
+        this.channel = channel;
+        final int size = Math.max(bufferSize, MIN_BUFFER_SIZE);
+        this.buf = new char[size];
+        if (channel != null) {
+            // replace what cannot be encoded, like an OutputStreamWriter
+            encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            bytes = ByteBuffer.allocateDirect(size);
+        } else {
+            encoder = null;
+            bytes = null;
+        }
+        this.fieldSeparator = fieldSeparator;
+        this.textDelimiter = textDelimiter;
+        this.alwaysDelimitText = alwaysDelimitText;
+        this.lineDelimiter = lineDelimiter.clone();
+        this.checkNumbers = isNumberChar(fieldSeparator) || isNumberChar(textDelimiter);
+    }
+
+    /**
+     * Returns true if c can be part of a number formatted by Long.toString or
+     * Double.toString, including "NaN" and "Infinity".
+     */
+    private static boolean isNumberChar(final char c) {
+        return c >= '0' && c <= '9' || "-.ENaInfinity".indexOf(c) >= 0;
+    }
+
+    /**
+     * Appends a field to the current line. The field is delimited if it contains the field
+     * separator, the text delimiter or a line break (text delimiters are then escaped by
+     * doubling them), or if text is always delimited. A {@code null} value is written as an
+     * empty field.
+     *
+     * @param value the field value - a String or any other CharSequence, such as the fields
+     *     of a {@link CsvRowView}.
+     * @throws IOException if a write error occurs
+     */
+    public void appendField(final CharSequence value) throws IOException {
+        startField();
+        if (value == null) {
+            if (alwaysDelimitText) {
+                put(textDelimiter);
+                put(textDelimiter);
+            }
+            return;
+        }
+
+        final int length = value.length();
+        if (!alwaysDelimitText && !needsDelimiting(value, length)) {
+            copy(value, 0, length);
+            return;
+        }
+
+        put(textDelimiter);
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) == textDelimiter) {
+                // copy up to and including the delimiter, then repeat it
+                copy(value, start, i + 1);
+                put(textDelimiter);
+                start = i + 1;
+            }
+        }
+        copy(value, start, length);
+        put(textDelimiter);
+    }
+
+    /**
+     * Appends an integer field to the current line, formatted like {@link Long#toString(long)}
+     * without creating a String.
+     *
+     * @param value the field value.
+     * @throws IOException if a write error occurs
+     */
+    public void appendField(final long value) throws IOException {
+        if (checkNumbers) {
+            appendField(Long.toString(value));
+            return;
+        }
+        startField();
+        if (alwaysDelimitText) {
+            put(textDelimiter);
+        }
+        if (buf.length - pos < MAX_LONG_LENGTH) {
+            flushBuffer();
+        }
+
+        // digits are produced from the right; negative values are handled as negative so
+        // that Long.MIN_VALUE needs no special case
+        long v = value < 0 ? value : -value;
+        final int length = stringSize(v) + (value < 0 ? 1 : 0);
+        int i = pos + length;
+        do {
+            buf[--i] = (char) ('0' - (int) (v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (value < 0) {
+            buf[--i] = '-';
+        }
+        pos += length;
+
+        if (alwaysDelimitText) {
+            put(textDelimiter);
+        }
+    }
+
+    /**
+     * Returns the number of digits of v, which must not be positive.
+     */
+    private static int stringSize(final long v) {
+        long p = -10;
+        for (int i = 1; i < 19; i++) {
+            if (v > p) {
+                return i;
+            }
+            p = 10 * p;
+        }
+        return 19;
+    }
+
+    /**
+     * Appends a floating-point field to the current line, formatted like
+     * {@link Double#toString(double)}.
+     *
+     * @param value the field value.
+     * @throws IOException if a write error occurs
+     */
+    public void appendField(final double value) throws IOException {
+        if (checkNumbers) {
+            appendField(Double.toString(value));
+            return;
+        }
+        startField();
+        if (alwaysDelimitText) {
+            put(textDelimiter);
+        }
+        final String s = Double.toString(value);
+        copy(s, 0, s.length());
+        if (alwaysDelimitText) {
+            put(textDelimiter);
+        }
+    }
+
+    /**
+     * Appends a complete line - one or more fields and a line delimiter.
+     *
+     * @param values the fields to append - {@code null} values are written as empty fields.
+     * @throws IOException if a write error occurs
+     */
+    public void appendLine(final String... values) throws IOException {
+        for (final String value : values) {
+            appendField(value);
+        }
+        endLine();
+    }
+
+    /**
+     * Appends a line delimiter.
+     *
+     * @throws IOException if a write error occurs
+     */
+    public void endLine() throws IOException {
+        for (final char c : lineDelimiter) {
+            put(c);
+        }
+        newline = true;
+    }
+
+    private void startField() throws IOException {
+        if (!newline) {
+            put(fieldSeparator);
+        }
+        newline = false;
+    }
+
+    private boolean needsDelimiting(final CharSequence value, final int length) {
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == textDelimiter || c == fieldSeparator || c == LF || c == CR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(final char c) throws IOException {
+        if (pos == buf.length) {
+            flushBuffer();
+        }
+        buf[pos++] = c;
+    }
+
+    /**
+     * Copies value[start, end) into the buffer, flushing it as often as necessary.
+     */
+    private void copy(final CharSequence value, final int start, final int end)
+        throws IOException {
+
+        int i = start;
+        while (i < end) {
+            if (pos == buf.length) {
+                flushBuffer();
+            }
+            final int n = Math.min(end - i, buf.length - pos);
+            if (value instanceof String) {
+                ((String) value).getChars(i, i + n, buf, pos);
+            } else {
+                for (int j = 0; j < n; j++) {
+                    buf[pos + j] = value.charAt(i + j);
+                }
+            }
+            pos += n;
+            i += n;
+        }
+    }
+
+    /**
+     * Hands the buffered characters to the writer, or encodes them and writes them to the
+     * channel. A high surrogate at the end of the buffer is kept until its low surrogate
+     * follows.
+     */
+    private void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.write(buf, 0, pos);
+            pos = 0;
+            return;
+        }
+        final CharBuffer chars = CharBuffer.wrap(buf, 0, pos);
+        encode(chars, false);
+        final int remaining = chars.remaining();
+        System.arraycopy(buf, chars.position(), buf, 0, remaining);
+        pos = remaining;
+    }
+
+    private void encode(final CharBuffer chars, final boolean endOfInput) throws IOException {
+        while (true) {
+            final CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                writeBytes();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Flushes all buffered data to the underlying writer or channel. A half surrogate pair
+     * at the end of the data written to a channel is kept until its other half follows.
+     *
+     * @throws IOException if a write error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        if (writer != null) {
+            writer.flush();
+        } else {
+            writeBytes();
+        }
+    }
+
+    /**
+     * Flushes all buffered data and closes the underlying writer or channel.
+     *
+     * @throws IOException if a write error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writer != null) {
+                flushBuffer();
+            } else {
+                final CharBuffer chars = CharBuffer.wrap(buf, 0, pos);
+                encode(chars, true);
+                pos = 0;
+                while (encoder.flush(bytes).isOverflow()) {
+                    writeBytes();
+                }
+                writeBytes();
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            } else {
+                channel.close();
+            }
+        }
+    }
+
+}
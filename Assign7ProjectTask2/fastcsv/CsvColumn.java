@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.util.Map;
+
+/**
+ * A column of a CSV file with a header, resolved once by name - see
+ * {@link CsvParser#getColumn(String)}. Reading a field through a column, e.g. with
+ * {@link CsvRow#getField(CsvColumn)}, needs no header lookup.
+ *
+ * A column can be used with the rows of any file whose header has the same names at the
+ * same positions as the one it was resolved against.
+ */
+public final class CsvColumn {
+
+    private final String name;
+    private final int index;
+    private final Map<String, Integer> headerMap;
+
+    /**
+     * The last other header found to be equal to {@link #headerMap} (e.g. that of another
+     * chunk of a file parsed in parallel), so it is only compared once.
+     */
+    private volatile Map<String, Integer> equalHeaderMap;
+
+    CsvColumn(final String name, final Map<String, Integer> headerMap) {
+        final Integer col = headerMap.get(name);
+        this.name = name;
+        this.index = col != null ? col : -1;
+        this.headerMap = headerMap;
+    }
+
+    /**
+     * Gets the name of this column.
+     *
+     * @return the header name this column was resolved from
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the index of this column (starting with 0).
+     *
+     * @return the index of this column, -1 if the header has no such name
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Tells if the header this column was resolved against has its name.
+     *
+     * @return {@code true} if this column exists
+     */
+    public boolean exists() {
+        return index >= 0;
+    }
+
+    /**
+     * Returns the index of this column in a row with the given header and field count.
+     *
+     * @return the index, or -1 if the row has no such field
+     * @throws IllegalArgumentException if the row's header differs from this column's
+     */
+    int indexIn(final Map<String, Integer> rowHeaderMap, final int fieldCount) {
+        if (rowHeaderMap != headerMap && rowHeaderMap != equalHeaderMap) {
+            if (!headerMap.equals(rowHeaderMap)) {
+                throw new IllegalArgumentException(
+                    "Column " + name + " was resolved against a different header");
+            }
+            equalHeaderMap = rowHeaderMap;
+        }
+        return index < fieldCount ? index : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "CsvColumn{name=" + name + ", index=" + index + "}";
+    }
+
+}
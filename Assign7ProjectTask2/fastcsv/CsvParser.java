@@ -21,7 +21,6 @@ package fastcsv;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -34,7 +33,7 @@ import java.util.Map;
  */
 public final class CsvParser implements Closeable {
 
-    private final RowReader rowReader;
+    private final RecordReader rowReader;
     private final boolean containsHeader;
     private final boolean skipEmptyRows;
     private final boolean errorOnDifferentFieldCount;
@@ -42,18 +41,123 @@ public final class CsvParser implements Closeable {
     private Map<String, Integer> headerMap;
     private List<String> headerList;
     private long lineNo;
+    private long rowLineNo;
     private int firstLineFieldCount = -1;
+    private String[] projectedNames;
+    private int[] projectedColumns;
 
     CsvParser(final Reader reader, final char fieldSeparator, final char textDelimiter,
               final boolean containsHeader, final boolean skipEmptyRows,
               final boolean errorOnDifferentFieldCount) {
 
-        rowReader = new RowReader(reader, fieldSeparator, textDelimiter);
+        this(new RowReader(reader, fieldSeparator, textDelimiter), containsHeader, skipEmptyRows,
+            errorOnDifferentFieldCount);
+    }
+
+    CsvParser(final RecordReader rowReader, final boolean containsHeader,
+              final boolean skipEmptyRows, final boolean errorOnDifferentFieldCount) {
+
+        this.rowReader = rowReader;
         this.containsHeader = containsHeader;
         this.skipEmptyRows = skipEmptyRows;
         this.errorOnDifferentFieldCount = errorOnDifferentFieldCount;
     }
 
+    /**
+     * Constructs a parser for a part of a CSV file that starts after the given number of
+     * lines, whose header (if any) has already been read.
+     */
+    CsvParser(final RecordReader rowReader, final List<String> header, final long lineNo,
+              final boolean skipEmptyRows, final boolean errorOnDifferentFieldCount) {
+
+        this(rowReader, header != null, skipEmptyRows, errorOnDifferentFieldCount);
+        if (header != null) {
+            initHeader(header);
+            firstLineFieldCount = header.size();
+        }
+        this.lineNo = lineNo;
+    }
+
+    /**
+     * Resolves a column by its header name, reading the header first if no row has been read
+     * yet. Use the returned column to read fields without looking up the name again.
+     *
+     * @param name the header name of the column
+     * @return the column - {@link CsvColumn#exists()} tells if the header has such a name
+     * @throws IOException if an error occurred while reading the header
+     * @throws IllegalStateException if header parsing is not enabled
+     */
+    public CsvColumn getColumn(final String name) throws IOException {
+        if (!containsHeader) {
+            throw new IllegalStateException("No header available - header parsing is disabled");
+        }
+        if (headerMap == null) {
+            readRow(true);
+        }
+        return new CsvColumn(name,
+            headerMap != null ? headerMap : Collections.<String, Integer>emptyMap());
+    }
+
+    /**
+     * Restricts the fields of all following rows to the given columns. Fields of other
+     * columns are skipped without being copied or converted to Strings and read as
+     * {@code null}.
+     *
+     * @param columns the columns to keep - none to keep all columns
+     * @throws IllegalArgumentException if a column was resolved against a different header
+     */
+    public void setColumnProjection(final CsvColumn... columns) {
+        final int[] indices = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indices[i] = columns[i].indexIn(headerMap, Integer.MAX_VALUE);
+        }
+        setColumnProjection(null, columns.length == 0 ? null : indices);
+    }
+
+    /**
+     * Restricts the fields of all following rows to the given columns, by name or by index.
+     * Names are resolved once the header has been read.
+     *
+     * @throws IllegalStateException if names are given but header parsing is not enabled
+     */
+    void setColumnProjection(final String[] names, final int[] columns) {
+        if (names != null && !containsHeader) {
+            throw new IllegalStateException(
+                "Columns can only be projected by name if header parsing is enabled");
+        }
+        projectedNames = names;
+        projectedColumns = columns;
+        if (!containsHeader || headerMap != null) {
+            applyColumnProjection();
+        }
+    }
+
+    private void applyColumnProjection() {
+        int[] columns = projectedColumns;
+        if (projectedNames != null) {
+            columns = new int[projectedNames.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new CsvColumn(projectedNames[i], headerMap).getIndex();
+            }
+        }
+        if (columns == null) {
+            rowReader.setProjection(null);
+            return;
+        }
+
+        int maxColumn = -1;
+        for (final int col : columns) {
+            maxColumn = Math.max(maxColumn, col);
+        }
+        final boolean[] projection = new boolean[maxColumn + 1];
+        for (final int col : columns) {
+            if (col >= 0) {
+                projection[col] = true;
+            }
+        }
+        rowReader.setProjection(projection);
+    }
+
     /**
      * Returns the header fields - {@code null} if no header exists. The returned list is
      * unmodifiable. Use {@link CsvReader#setContainsHeader(boolean)} to enable header parsing.
@@ -82,13 +186,39 @@ public final class CsvParser implements Closeable {
      * @throws IOException if an error occurred while reading data
      */
     public CsvRow nextRow() throws IOException {
+        if (!readRow(false)) {
+            return null;
+        }
+        return new CsvRow(rowLineNo, headerMap, rowReader.getFields());
+    }
+
+    /**
+     * Hands every remaining row to the handler as the same {@link CsvRowView}, which is
+     * updated in place for each row. Requires a parser that reads chars, i.e. one that was
+     * not created for a memory-mapped file.
+     */
+    void forEach(final RowHandler handler) throws IOException {
+        if (!(rowReader instanceof RowReader)) {
+            throw new IllegalStateException("Row views require a parser that reads chars");
+        }
+        final CsvRowView view = new CsvRowView(((RowReader) rowReader).getLine());
+        while (readRow(false)) {
+            view.reset(rowLineNo, headerMap);
+            handler.handleRow(view);
+        }
+    }
+
+    /**
+     * Reads records until the next row (not the header, nor a skipped empty row).
+     *
+     * @param headerOnly stop once the header has been read
+     * @return {@code false} if end of file (or, with headerOnly, the header) reached
+     */
+    private boolean readRow(final boolean headerOnly) throws IOException {
         while (!rowReader.isFinished()) {
             final long startingLineNo = lineNo + 1;
-            final RowReader.Line line = rowReader.readLine();
-            final String[] currentFields = line.getFields();
-            lineNo += line.getLines();
-
-            final int fieldCount = currentFields.length;
+            final int fieldCount = rowReader.readRecord();
+            lineNo += rowReader.getLines();
 
             // reached end of data in a new line?
             if (fieldCount == 0) {
@@ -96,7 +226,7 @@ public final class CsvParser implements Closeable {
             }
 
             // skip empty rows
-            if (skipEmptyRows && fieldCount == 1 && currentFields[0].isEmpty()) {
+            if (skipEmptyRows && fieldCount == 1 && rowReader.isEmptyRecord()) {
                 continue;
             }
 
@@ -111,18 +241,23 @@ public final class CsvParser implements Closeable {
                 }
             }
 
-            final List<String> fieldList = Arrays.asList(currentFields);
-
             // initialize header
             if (containsHeader && headerList == null) {
-                initHeader(fieldList);
+                initHeader(rowReader.getFields());
+                if (projectedNames != null || projectedColumns != null) {
+                    applyColumnProjection();
+                }
+                if (headerOnly) {
+                    return false;
+                }
                 continue;
             }
 
-            return new CsvRow(startingLineNo, headerMap, fieldList);
+            rowLineNo = startingLineNo;
+            return true;
         }
 
-        return null;
+        return false;
     }
 
     private void initHeader(final List<String> currentFields) {
@@ -138,6 +273,17 @@ public final class CsvParser implements Closeable {
         headerMap = Collections.unmodifiableMap(localHeaderMap);
     }
 
+    /**
+     * Returns the offset in the file of the first byte after the last row read (or skipped,
+     * like the header and empty rows), e.g. to continue reading there later with
+     * {@link CsvReader#parse(java.nio.file.Path, java.nio.charset.Charset, long)}.
+     *
+     * @return the byte offset - -1 if this parser does not read a memory-mapped file
+     */
+    public long getPosition() {
+        return rowReader.getPosition();
+    }
+
     @Override
     public void close() throws IOException {
         rowReader.close();
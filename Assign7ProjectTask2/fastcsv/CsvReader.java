@@ -18,10 +18,13 @@
 
 package fastcsv;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -62,6 +65,42 @@ public final class CsvReader {
      */
     private boolean errorOnDifferentFieldCount;
 
+    /**
+     * Number of threads for parallel parsing (default: number of available processors).
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Approximate size in bytes of the chunks a file is split into for parallel parsing
+     * (default: 4 MB).
+     */
+    private int chunkSize = 4 * 1024 * 1024;
+
+    /**
+     * Memory-map files and parse their bytes directly? (default: false).
+     */
+    private boolean memoryMapped;
+
+    /**
+     * Names of the projected columns (default: null - all columns).
+     */
+    private String[] projectedNames;
+
+    /**
+     * Indices of the projected columns (default: null - all columns).
+     */
+    private int[] projectedColumns;
+
+    /**
+     * Number of buffers read ahead by a background thread (default: 0 - no read-ahead).
+     */
+    private int readAheadBufferCount;
+
+    /**
+     * Size in characters of each read-ahead buffer (default: 1 M).
+     */
+    private int readAheadBufferSize = 1024 * 1024;
+
     /**
      * Sets the field separator character (default: ',' - comma).
      */
@@ -98,6 +137,93 @@ public final class CsvReader {
         this.errorOnDifferentFieldCount = errorOnDifferentFieldCount;
     }
 
+    /**
+     * Sets the number of threads used by parallel parsing (default: number of available
+     * processors).
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the approximate size in bytes of the chunks a file is split into for parallel
+     * parsing (default: 4 MB).
+     */
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Specifies if files should be memory-mapped and parsed byte by byte (default: false).
+     *
+     * Fields are then only decoded to Strings when they are requested from a {@link CsvRow}
+     * and rows keep the mapping alive while they are referenced. This is only done for
+     * UTF-8, US-ASCII and ISO-8859-1 with a single-byte field separator and text delimiter;
+     * files in other charsets are always decoded by a {@link Reader}.
+     */
+    public void setMemoryMapped(final boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Sets the number of buffers that a background thread fills ahead of the parser
+     * (default: 0 - no read-ahead).
+     *
+     * With read-ahead, data read through a {@link Reader} is read and decoded on a
+     * dedicated thread while the parser consumes the buffers filled before, so that I/O and
+     * parsing overlap; 2 gives double buffering. This helps on slow or network-backed
+     * volumes. Memory-mapped and parallel parsing do not use it.
+     */
+    public void setReadAheadBufferCount(final int readAheadBufferCount) {
+        if (readAheadBufferCount < 0) {
+            throw new IllegalArgumentException("readAheadBufferCount must not be negative");
+        }
+        this.readAheadBufferCount = readAheadBufferCount;
+    }
+
+    /**
+     * Sets the size in characters of each read-ahead buffer (default: 1 M).
+     * See {@link #setReadAheadBufferCount(int)}.
+     */
+    public void setReadAheadBufferSize(final int readAheadBufferSize) {
+        if (readAheadBufferSize < 1) {
+            throw new IllegalArgumentException("readAheadBufferSize must be at least 1");
+        }
+        this.readAheadBufferSize = readAheadBufferSize;
+    }
+
+    /**
+     * Restricts parsing to the columns with the given header names (default: all columns).
+     *
+     * Fields of other columns are skipped without being copied or converted to Strings and
+     * read as {@code null} from a {@link CsvRow}; the field count of a row is unchanged. The
+     * fields that are kept are only converted to Strings when they are requested. Requires
+     * a header - see {@link #setContainsHeader(boolean)}.
+     *
+     * @param names the header names of the columns to keep - none to keep all columns.
+     */
+    public void setColumnProjection(final String... names) {
+        this.projectedNames = names.length == 0 ? null : names.clone();
+        this.projectedColumns = null;
+    }
+
+    /**
+     * Restricts parsing to the columns with the given indices (starting with 0, default:
+     * all columns). See {@link #setColumnProjection(String...)}.
+     *
+     * @param columns the indices of the columns to keep - none to keep all columns.
+     */
+    public void setColumnProjection(final int... columns) {
+        this.projectedColumns = columns.length == 0 ? null : columns.clone();
+        this.projectedNames = null;
+    }
+
     /**
      * Reads an entire file and returns a CsvContainer containing the data.
      *
@@ -124,8 +250,8 @@ public final class CsvReader {
     public CsvContainer read(final Path path, final Charset charset) throws IOException {
         Objects.requireNonNull(path, "path must not be null");
         Objects.requireNonNull(charset, "charset must not be null");
-        try (final Reader reader = newPathReader(path, charset)) {
-            return read(reader);
+        try (final CsvParser csvParser = parse(path, charset)) {
+            return read(csvParser);
         }
     }
 
@@ -141,9 +267,10 @@ public final class CsvReader {
      * @throws IOException if an I/O error occurs.
      */
     public CsvContainer read(final Reader reader) throws IOException {
-        final CsvParser csvParser =
-            parse(Objects.requireNonNull(reader, "reader must not be null"));
+        return read(parse(Objects.requireNonNull(reader, "reader must not be null")));
+    }
 
+    private CsvContainer read(final CsvParser csvParser) throws IOException {
         final List<CsvRow> rows = new ArrayList<>();
         CsvRow csvRow;
         while ((csvRow = csvParser.nextRow()) != null) {
@@ -161,16 +288,33 @@ public final class CsvReader {
     /**
      * Constructs a new {@link CsvParser} for the specified arguments.
      *
+     * Files compressed with gzip are detected by their magic bytes and decompressed on the
+     * fly: a background thread decompresses and decodes them into a bounded queue of
+     * read-ahead buffers (at least two, see {@link #setReadAheadBufferCount(int)}), and
+     * the members of a multi-member file are decompressed in parallel by up to
+     * {@link #setParallelism(int)} threads. Compressed files are never memory-mapped.
+     *
      * @param path the file to read data from.
      * @param charset the character set to use - must not be {@code null}.
      * @return a new CsvParser - never {@code null}.
      * @throws IOException if an I/O error occurs.
      */
     public CsvParser parse(final Path path, final Charset charset) throws IOException {
-        return parse(newPathReader(
-            Objects.requireNonNull(path, "path must not be null"),
-            Objects.requireNonNull(charset, "charset must not be null")
-        ));
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(charset, "charset must not be null");
+        if (memoryMapped && ByteRowReader.supports(charset, fieldSeparator, textDelimiter)
+            && !ParallelGzipInputStream.isGzip(path)) {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return project(new CsvParser(
+                    new ByteRowReader(channel, charset, fieldSeparator, textDelimiter),
+                    containsHeader, skipEmptyRows, errorOnDifferentFieldCount));
+            } catch (final IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        return parse(newPathReader(path, charset));
     }
 
     /**
@@ -188,6 +332,98 @@ public final class CsvReader {
         );
     }
 
+    /**
+     * Constructs a new {@link CsvParser} that reads the complete lines of a file from a byte
+     * offset on, e.g. the rows that were appended to a file since it was last read. The file
+     * is memory-mapped up to its last line break at the time of this call, so a line that is
+     * still being written is left for a later call; {@link CsvParser#getPosition()} tells
+     * where to continue. The first record at the offset is the header if header parsing is
+     * enabled, and line numbers count from the offset.
+     *
+     * @param path the file to read data from.
+     * @param charset the character set to use - must not be {@code null}.
+     * @param offset the offset of the first byte to read - the start of a record.
+     * @return a new CsvParser - never {@code null}.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the offset is negative or past the end of the file,
+     * if the file is gzip-compressed or if the charset cannot be read byte by byte (see
+     * {@link #parse(Path, Charset)}).
+     */
+    public CsvParser parse(final Path path, final Charset charset, final long offset)
+        throws IOException {
+
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(charset, "charset must not be null");
+        if (!ByteRowReader.supports(charset, fieldSeparator, textDelimiter)) {
+            throw new IllegalArgumentException("Cannot read " + charset + " from an offset");
+        }
+        if (ParallelGzipInputStream.isGzip(path)) {
+            throw new IllegalArgumentException("Cannot read a compressed file from an offset");
+        }
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final long end = lastLineEnd(channel, offset);
+            return project(new CsvParser(
+                new ByteRowReader(channel, charset, fieldSeparator, textDelimiter, offset, end),
+                containsHeader, skipEmptyRows, errorOnDifferentFieldCount));
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Constructs a new {@link CsvParser} that reads the complete lines of a file from a byte
+     * offset on. See {@link #parse(Path, Charset, long)}.
+     *
+     * @param file the file to read data from.
+     * @param charset the character set to use - must not be {@code null}.
+     * @param offset the offset of the first byte to read - the start of a record.
+     * @return a new CsvParser - never {@code null}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public CsvParser parse(final File file, final Charset charset, final long offset)
+        throws IOException {
+
+        return parse(Objects.requireNonNull(file, "file must not be null").toPath(), charset,
+            offset);
+    }
+
+    /**
+     * Returns the offset of the first byte after the last line break of a file, looking no
+     * further back than offset. A CR that is the last byte of the file does not end a line
+     * yet, as it may be the first half of a CRLF.
+     */
+    private static long lastLineEnd(final FileChannel channel, final long offset)
+        throws IOException {
+
+        final long size = channel.size();
+        if (offset < 0 || offset > size) {
+            throw new IllegalArgumentException(
+                "Offset " + offset + " is outside of the file (size " + size + ")");
+        }
+        final ByteBuffer buf = ByteBuffer.allocate(8192);
+        long end = size;
+        while (end > offset) {
+            final int length = (int) Math.min(buf.capacity(), end - offset);
+            buf.clear().limit(length);
+            final long start = end - length;
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, start + buf.position()) < 0) {
+                    throw new EOFException("File was truncated while being read");
+                }
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                final byte b = buf.get(i);
+                if (b == '\n' || b == '\r' && start + i + 1 < size) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return offset;
+    }
+
     /**
      * Constructs a new {@link CsvParser} for the specified arguments.
      *
@@ -200,12 +436,129 @@ public final class CsvReader {
      * @throws IOException if an I/O error occurs.
      */
     public CsvParser parse(final Reader reader) throws IOException {
-        return new CsvParser(Objects.requireNonNull(reader, "reader must not be null"),
-            fieldSeparator, textDelimiter, containsHeader, skipEmptyRows,
-            errorOnDifferentFieldCount);
+        Objects.requireNonNull(reader, "reader must not be null");
+        final Reader source = readAheadBufferCount > 0 && !(reader instanceof ReadAheadReader)
+            ? new ReadAheadReader(reader, readAheadBufferCount, readAheadBufferSize) : reader;
+        return project(new CsvParser(source, fieldSeparator, textDelimiter, containsHeader,
+            skipEmptyRows, errorOnDifferentFieldCount));
+    }
+
+    private CsvParser project(final CsvParser csvParser) {
+        if (projectedNames != null || projectedColumns != null) {
+            csvParser.setColumnProjection(projectedNames, projectedColumns);
+        }
+        return csvParser;
+    }
+
+    /**
+     * Parses a file on several threads and hands every row to the callback.
+     *
+     * The file is split into chunks on record boundaries (quoted fields may contain line
+     * breaks) which are parsed concurrently - see {@link #setParallelism(int)} and
+     * {@link #setChunkSize(int)}. With {@code ordered}, rows are handed to the callback on
+     * the calling thread in file order; otherwise they are handed over from the worker
+     * threads as soon as they are parsed, in no particular order, and the callback must
+     * be thread-safe. Files in charsets other than UTF-8, US-ASCII and ISO-8859-1 and
+     * gzip-compressed files (see {@link #parse(Path, Charset)}) are parsed sequentially.
+     * Without a header, the field count check of {@link #setErrorOnDifferentFieldCount(boolean)}
+     * only applies within a chunk.
+     *
+     * @param path the file to read data from.
+     * @param charset the character set to use - must not be {@code null}.
+     * @param ordered whether rows must be delivered in file order.
+     * @param callback receives every row - must not be {@code null}.
+     * @throws IOException if an I/O error occurs or the callback throws one.
+     */
+    public void parseParallel(final Path path, final Charset charset, final boolean ordered,
+                              final RowCallback callback) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(charset, "charset must not be null");
+        Objects.requireNonNull(callback, "callback must not be null");
+        if (projectedNames != null && !containsHeader) {
+            throw new IllegalStateException(
+                "Columns can only be projected by name if header parsing is enabled");
+        }
+
+        final ParallelCsvParser parallelParser = new ParallelCsvParser(fieldSeparator,
+            textDelimiter, containsHeader, skipEmptyRows, errorOnDifferentFieldCount,
+            projectedNames, projectedColumns, parallelism, chunkSize);
+        if (parallelism > 1 && parallelParser.canSplit(charset)
+            && !ParallelGzipInputStream.isGzip(path)) {
+            parallelParser.parse(path, charset, ordered, callback);
+            return;
+        }
+        try (CsvParser csvParser = parse(path, charset)) {
+            CsvRow csvRow;
+            while ((csvRow = csvParser.nextRow()) != null) {
+                callback.handleRow(csvRow);
+            }
+        }
+    }
+
+    /**
+     * Parses a file on several threads and hands every row to the callback.
+     * See {@link #parseParallel(Path, Charset, boolean, RowCallback)}.
+     *
+     * @param file the file to read data from.
+     * @param charset the character set to use - must not be {@code null}.
+     * @param ordered whether rows must be delivered in file order.
+     * @param callback receives every row - must not be {@code null}.
+     * @throws IOException if an I/O error occurs or the callback throws one.
+     */
+    public void parseParallel(final File file, final Charset charset, final boolean ordered,
+                              final RowCallback callback) throws IOException {
+        parseParallel(Objects.requireNonNull(file, "file must not be null").toPath(), charset,
+            ordered, callback);
     }
 
-    private static Reader newPathReader(final Path path, final Charset charset) throws IOException {
+    /**
+     * Reads a file and hands every row to the handler as the same, reused {@link CsvRowView}.
+     *
+     * Fields are read as {@link CharSequence}s that point into the parser's buffer, so a
+     * full scan allocates no objects per row. The file is always decoded by a {@link Reader},
+     * even if {@link #setMemoryMapped(boolean) memory mapping} is enabled, and gzip-compressed
+     * files are decompressed as by {@link #parse(Path, Charset)}; a
+     * {@link #setColumnProjection(String...) column projection} applies.
+     *
+     * @param path the file to read data from.
+     * @param charset the character set to use - must not be {@code null}.
+     * @param handler receives every row - must not be {@code null}.
+     * @throws IOException if an I/O error occurs or the handler throws one.
+     */
+    public void forEach(final Path path, final Charset charset, final RowHandler handler)
+        throws IOException {
+
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(charset, "charset must not be null");
+        Objects.requireNonNull(handler, "handler must not be null");
+        try (CsvParser csvParser = parse(newPathReader(path, charset))) {
+            csvParser.forEach(handler);
+        }
+    }
+
+    /**
+     * Reads a file and hands every row to the handler as the same, reused {@link CsvRowView}.
+     * See {@link #forEach(Path, Charset, RowHandler)}.
+     *
+     * @param file the file to read data from.
+     * @param charset the character set to use - must not be {@code null}.
+     * @param handler receives every row - must not be {@code null}.
+     * @throws IOException if an I/O error occurs or the handler throws one.
+     */
+    public void forEach(final File file, final Charset charset, final RowHandler handler)
+        throws IOException {
+
+        forEach(Objects.requireNonNull(file, "file must not be null").toPath(), charset,
+            handler);
+    }
+
+    private Reader newPathReader(final Path path, final Charset charset) throws IOException {
+        if (ParallelGzipInputStream.isGzip(path)) {
+            // decompress and decode on a thread of their own
+            return new ReadAheadReader(new InputStreamReader(
+                new ParallelGzipInputStream(path, parallelism, chunkSize), charset),
+                Math.max(readAheadBufferCount, 2), readAheadBufferSize);
+        }
         return new InputStreamReader(Files.newInputStream(path, StandardOpenOption.READ), charset);
     }
 
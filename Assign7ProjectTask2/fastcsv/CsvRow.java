@@ -89,6 +89,128 @@ public final class CsvRow {
         return null;
     }
 
+    /**
+     * Gets a field value by its column, without looking up the column name.
+     *
+     * @param column a column resolved by {@link CsvParser#getColumn(String)}
+     * @return field value, {@code null} if this row has no such field
+     * @throws IllegalArgumentException if the column was resolved against a different header
+     */
+    public String getField(final CsvColumn column) {
+        final int col = column.indexIn(headerMap, fields.size());
+        return col >= 0 ? fields.get(col) : null;
+    }
+
+    /**
+     * Parses a field as an int, straight from the data it was read from - no String is
+     * created for it.
+     *
+     * @param index index of the field (starting with 0)
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not an int - the message names the line
+     * @throws IllegalStateException if the column is not part of the projection
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public int getInt(final int index) {
+        try {
+            return NumberParser.parseInt(numberField(index));
+        } catch (final NumberFormatException e) {
+            throw malformed(index, e);
+        }
+    }
+
+    /**
+     * Parses a field as an int - see {@link #getInt(int)}.
+     *
+     * @param column a column resolved by {@link CsvParser#getColumn(String)}
+     * @return the value of the field
+     * @throws NumberFormatException if this row has no such field or it is not an int
+     */
+    public int getInt(final CsvColumn column) {
+        return getInt(numberIndex(column));
+    }
+
+    /**
+     * Parses a field as a long, straight from the data it was read from - no String is
+     * created for it.
+     *
+     * @param index index of the field (starting with 0)
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a long - the message names the line
+     * @throws IllegalStateException if the column is not part of the projection
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public long getLong(final int index) {
+        try {
+            return NumberParser.parseLong(numberField(index));
+        } catch (final NumberFormatException e) {
+            throw malformed(index, e);
+        }
+    }
+
+    /**
+     * Parses a field as a long - see {@link #getLong(int)}.
+     *
+     * @param column a column resolved by {@link CsvParser#getColumn(String)}
+     * @return the value of the field
+     * @throws NumberFormatException if this row has no such field or it is not a long
+     */
+    public long getLong(final CsvColumn column) {
+        return getLong(numberIndex(column));
+    }
+
+    /**
+     * Parses a field as a double, straight from the data it was read from - no String is
+     * created for it. Accepts what {@link Double#parseDouble(String)} accepts.
+     *
+     * @param index index of the field (starting with 0)
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a double - the message names the line
+     * @throws IllegalStateException if the column is not part of the projection
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public double getDouble(final int index) {
+        try {
+            return NumberParser.parseDouble(numberField(index));
+        } catch (final NumberFormatException e) {
+            throw malformed(index, e);
+        }
+    }
+
+    /**
+     * Parses a field as a double - see {@link #getDouble(int)}.
+     *
+     * @param column a column resolved by {@link CsvParser#getColumn(String)}
+     * @return the value of the field
+     * @throws NumberFormatException if this row has no such field or it is not a double
+     */
+    public double getDouble(final CsvColumn column) {
+        return getDouble(numberIndex(column));
+    }
+
+    private CharSequence numberField(final int index) {
+        final CharSequence field = fields instanceof LazyFieldList
+            ? ((LazyFieldList) fields).getCharSequence(index) : fields.get(index);
+        if (field == null) {
+            throw new IllegalStateException("Column " + index + " is not part of the projection");
+        }
+        return field;
+    }
+
+    private int numberIndex(final CsvColumn column) {
+        final int col = column.indexIn(headerMap, fields.size());
+        if (col < 0) {
+            throw new NumberFormatException(String.format("Line %d has no field %s",
+                originalLineNumber, column.getName()));
+        }
+        return col;
+    }
+
+    private NumberFormatException malformed(final int index, final NumberFormatException e) {
+        return new NumberFormatException(String.format("Line %d, field %d: %s",
+            originalLineNumber, index, e.getMessage()));
+    }
+
     /**
      * Gets all fields of this row as an unmodifiable List.
      *
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mutable view of the current row of a CSV file, see {@link RowHandler}. The view and
+ * the {@link CharSequence}s it hands out are reused for every row, so reading a file this
+ * way creates no objects per row; use {@link #toCsvRow()} or {@link CharSequence#toString()}
+ * to keep data beyond the current row.
+ */
+public final class CsvRowView {
+
+    private final RowReader.Line line;
+    private CharWindow[] fields = new CharWindow[0];
+    private Map<String, Integer> headerMap;
+    private long originalLineNumber;
+
+    CsvRowView(final RowReader.Line line) {
+        this.line = line;
+    }
+
+    void reset(final long originalLineNumber, final Map<String, Integer> headerMap) {
+        this.originalLineNumber = originalLineNumber;
+        this.headerMap = headerMap;
+    }
+
+    /**
+     * Returns the original line number (starting with 1). On multi-line rows this is the starting
+     * line number.
+     *
+     * @return the original line number
+     */
+    public long getOriginalLineNumber() {
+        return originalLineNumber;
+    }
+
+    /**
+     * Gets the number of fields of this row.
+     *
+     * @return the number of fields of this row
+     */
+    public int getFieldCount() {
+        return line.getFieldCount();
+    }
+
+    /**
+     * Gets the contents of a field by its index (starting with 0). The returned sequence is
+     * reused for the same index of the following rows.
+     *
+     * @param index index of the field to return
+     * @return field contents, {@code null} if the column is not part of the projection
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public CharSequence getField(final int index) {
+        if (index < 0 || index >= line.getFieldCount()) {
+            throw new IndexOutOfBoundsException(
+                "Index: " + index + ", Size: " + line.getFieldCount());
+        }
+        if (!line.isProjected(index)) {
+            return null;
+        }
+        if (index >= fields.length) {
+            final int oldLength = fields.length;
+            fields = Arrays.copyOf(fields, Math.max(index + 1, oldLength * 2));
+            for (int i = oldLength; i < fields.length; i++) {
+                fields[i] = new CharWindow();
+            }
+        }
+        return fields[index].set(line.getChars(), line.getStart(index), line.getEnd(index));
+    }
+
+    /**
+     * Gets the contents of a field by its name.
+     *
+     * @param name field name
+     * @return field contents, {@code null} if this row has no such field or the column is not
+     * part of the projection
+     * @throws IllegalStateException if CSV is read without headers -
+     * see {@link CsvReader#containsHeader}
+     */
+    public CharSequence getField(final String name) {
+        if (headerMap == null) {
+            throw new IllegalStateException("No header available");
+        }
+
+        final Integer col = headerMap.get(name);
+        if (col != null && col < line.getFieldCount()) {
+            return getField(col);
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the contents of a field by its column, without looking up the column name.
+     *
+     * @param column a column resolved by {@link CsvParser#getColumn(String)}
+     * @return field contents, {@code null} if this row has no such field or the column is not
+     * part of the projection
+     * @throws IllegalArgumentException if the column was resolved against a different header
+     */
+    public CharSequence getField(final CsvColumn column) {
+        final int col = column.indexIn(headerMap, line.getFieldCount());
+        return col >= 0 ? getField(col) : null;
+    }
+
+    /**
+     * Parses a field as an int, straight from the parse buffer.
+     *
+     * @param index index of the field (starting with 0)
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not an int - the message names the line
+     * @throws IllegalStateException if the column is not part of the projection
+     */
+    public int getInt(final int index) {
+        try {
+            return NumberParser.parseInt(numberField(index));
+        } catch (final NumberFormatException e) {
+            throw malformed(index, e);
+        }
+    }
+
+    /**
+     * Parses a field as an int - see {@link #getInt(int)}.
+     *
+     * @param column a column resolved by {@link CsvParser#getColumn(String)}
+     * @return the value of the field
+     */
+    public int getInt(final CsvColumn column) {
+        return getInt(numberIndex(column));
+    }
+
+    /**
+     * Parses a field as a long, straight from the parse buffer.
+     *
+     * @param index index of the field (starting with 0)
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a long - the message names the line
+     * @throws IllegalStateException if the column is not part of the projection
+     */
+    public long getLong(final int index) {
+        try {
+            return NumberParser.parseLong(numberField(index));
+        } catch (final NumberFormatException e) {
+            throw malformed(index, e);
+        }
+    }
+
+    /**
+     * Parses a field as a long - see {@link #getLong(int)}.
+     *
+     * @param column a column resolved by {@link CsvParser#getColumn(String)}
+     * @return the value of the field
+     */
+    public long getLong(final CsvColumn column) {
+        return getLong(numberIndex(column));
+    }
+
+    /**
+     * Parses a field as a double, straight from the parse buffer. Accepts what
+     * {@link Double#parseDouble(String)} accepts.
+     *
+     * @param index index of the field (starting with 0)
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a double - the message names the line
+     * @throws IllegalStateException if the column is not part of the projection
+     */
+    public double getDouble(final int index) {
+        try {
+            return NumberParser.parseDouble(numberField(index));
+        } catch (final NumberFormatException e) {
+            throw malformed(index, e);
+        }
+    }
+
+    /**
+     * Parses a field as a double - see {@link #getDouble(int)}.
+     *
+     * @param column a column resolved by {@link CsvParser#getColumn(String)}
+     * @return the value of the field
+     */
+    public double getDouble(final CsvColumn column) {
+        return getDouble(numberIndex(column));
+    }
+
+    private CharSequence numberField(final int index) {
+        final CharSequence field = getField(index);
+        if (field == null) {
+            throw new IllegalStateException("Column " + index + " is not part of the projection");
+        }
+        return field;
+    }
+
+    private int numberIndex(final CsvColumn column) {
+        final int col = column.indexIn(headerMap, line.getFieldCount());
+        if (col < 0) {
+            throw new NumberFormatException(String.format("Line %d has no field %s",
+                originalLineNumber, column.getName()));
+        }
+        return col;
+    }
+
+    private NumberFormatException malformed(final int index, final NumberFormatException e) {
+        return new NumberFormatException(String.format("Line %d, field %d: %s",
+            originalLineNumber, index, e.getMessage()));
+    }
+
+    /**
+     * Copies the current row into a new, immutable {@link CsvRow}.
+     *
+     * @return a copy of this row
+     */
+    public CsvRow toCsvRow() {
+        return new CsvRow(originalLineNumber, headerMap, line.toFieldList());
+    }
+
+    @Override
+    public String toString() {
+        final List<String> values = new ArrayList<>(line.getFieldCount());
+        for (int i = 0; i < line.getFieldCount(); i++) {
+            final CharSequence field = getField(i);
+            values.add(field == null ? null : field.toString());
+        }
+        return "CsvRowView{originalLineNumber=" + originalLineNumber + ", fields=" + values + "}";
+    }
+
+}
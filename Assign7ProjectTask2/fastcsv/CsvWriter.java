@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * This is the main class for writing CSV data.
+ *
+ * @author Oliver Siegmar
+ */
+public final class CsvWriter {
+
+    /**
+     * Field separator character (default: ',' - comma).
+     */
+    private char fieldSeparator = ',';
+
+    /**
+     * Text delimiter character (default: '"' - double quotes).
+     */
+    private char textDelimiter = '"';
+
+    /**
+     * Should fields always be delimited using the textDelimiter? (default: false).
+     */
+    private boolean alwaysDelimitText;
+
+    /**
+     * The line delimiter character(s) to be used (default: CRLF).
+     */
+    private char[] lineDelimiter = {'\r', '\n'};
+
+    /**
+     * Size in characters of the output buffer (default: 1 M).
+     */
+    private int bufferSize = 1024 * 1024;
+
+    /**
+     * Sets the field separator character (default: ',' - comma).
+     */
+    public void setFieldSeparator(final char fieldSeparator) {
+        this.fieldSeparator = fieldSeparator;
+    }
+
+    /**
+     * Sets the text delimiter character (default: '"' - double quotes).
+     */
+    public void setTextDelimiter(final char textDelimiter) {
+        this.textDelimiter = textDelimiter;
+    }
+
+    /**
+     * Sets if fields should always be delimited using the text delimiter (default: false).
+     * Otherwise a field is only delimited if it contains the field separator, the text
+     * delimiter or a line break.
+     */
+    public void setAlwaysDelimitText(final boolean alwaysDelimitText) {
+        this.alwaysDelimitText = alwaysDelimitText;
+    }
+
+    /**
+     * Sets the line delimiter character(s) to be used (default: CRLF).
+     */
+    public void setLineDelimiter(final char[] lineDelimiter) {
+        this.lineDelimiter = Objects.requireNonNull(lineDelimiter,
+            "lineDelimiter must not be null").clone();
+    }
+
+    /**
+     * Sets the size in characters of the buffer that output is collected in before it is
+     * written (default: 1 M).
+     */
+    public void setBufferSize(final int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be at least 1");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Writes all specified data to the file.
+     *
+     * @param file where the data should be written to.
+     * @param charset the character set to use - must not be {@code null}.
+     * @param data lines/columns to be written.
+     * @throws IOException if a write error occurs
+     */
+    public void write(final File file, final Charset charset, final Collection<String[]> data)
+        throws IOException {
+
+        write(Objects.requireNonNull(file, "file must not be null").toPath(), charset, data);
+    }
+
+    /**
+     * Writes all specified data to the path.
+     *
+     * @param path where the data should be written to.
+     * @param charset the character set to use - must not be {@code null}.
+     * @param data lines/columns to be written.
+     * @throws IOException if a write error occurs
+     */
+    public void write(final Path path, final Charset charset, final Collection<String[]> data)
+        throws IOException {
+
+        try (CsvAppender appender = append(path, charset)) {
+            write(appender, data);
+        }
+    }
+
+    /**
+     * Writes all specified data to the writer.
+     *
+     * @param writer where the data should be written to.
+     * @param data lines/columns to be written.
+     * @throws IOException if a write error occurs
+     */
+    public void write(final Writer writer, final Collection<String[]> data) throws IOException {
+        final CsvAppender appender = append(writer);
+        write(appender, data);
+        appender.flush();
+    }
+
+    private static void write(final CsvAppender appender, final Collection<String[]> data)
+        throws IOException {
+
+        Objects.requireNonNull(data, "data must not be null");
+        for (final String[] values : data) {
+            appender.appendLine(values);
+        }
+    }
+
+    /**
+     * Constructs a {@link CsvAppender} for the specified File.
+     *
+     * @param file the file to write data to.
+     * @param charset the character set to use - must not be {@code null}.
+     * @return a new CsvAppender instance
+     * @throws IOException if a write error occurs
+     */
+    public CsvAppender append(final File file, final Charset charset) throws IOException {
+        return append(Objects.requireNonNull(file, "file must not be null").toPath(), charset);
+    }
+
+    /**
+     * Constructs a {@link CsvAppender} for the specified Path. The file is created or
+     * truncated and written through a {@link FileChannel}, see
+     * {@link #append(FileChannel, Charset)}.
+     *
+     * @param path the file to write data to.
+     * @param charset the character set to use - must not be {@code null}.
+     * @return a new CsvAppender instance
+     * @throws IOException if a write error occurs
+     */
+    public CsvAppender append(final Path path, final Charset charset) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(charset, "charset must not be null");
+        return append(FileChannel.open(path, StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), charset);
+    }
+
+    /**
+     * Constructs a {@link CsvAppender} that writes to a FileChannel, starting at its current
+     * position. Buffered characters are encoded straight into a direct byte buffer that is
+     * handed to the channel, without a {@link Writer} or stream in between. Closing the
+     * appender closes the channel.
+     *
+     * @param channel the channel to write data to.
+     * @param charset the character set to use - must not be {@code null}.
+     * @return a new CsvAppender instance
+     */
+    public CsvAppender append(final FileChannel channel, final Charset charset) {
+        Objects.requireNonNull(channel, "channel must not be null");
+        Objects.requireNonNull(charset, "charset must not be null");
+        return new CsvAppender(channel, charset, bufferSize, fieldSeparator, textDelimiter,
+            alwaysDelimitText, lineDelimiter);
+    }
+
+    /**
+     * Constructs a {@link CsvAppender} for the specified Writer.
+     *
+     * This library uses built-in buffering, so you do not need to pass in a buffered Writer
+     * implementation such as {@link java.io.BufferedWriter}.
+     * Performance may be even likely better if you do not.
+     *
+     * @param writer the Writer to use for writing CSV data.
+     * @return a new CsvAppender instance
+     */
+    public CsvAppender append(final Writer writer) {
+        return new CsvAppender(Objects.requireNonNull(writer, "writer must not be null"),
+            bufferSize, fieldSeparator, textDelimiter, alwaysDelimitText, lineDelimiter);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * The fields of a record, kept as start/end offsets into the data they were read from.
+ * A field is turned into a String when it is first requested. Fields that are not part
+ * of the column projection (see {@link CsvReader#setColumnProjection(String...)}) are
+ * {@code null}.
+ *
+ * This class is intended for internal use only.
+ */
+abstract class LazyFieldList extends AbstractList<String> implements RandomAccess {
+
+    /**
+     * Start and end of every field.
+     */
+    final int[] bounds;
+
+    /**
+     * The projected columns - {@code null} if all columns are projected.
+     */
+    private final boolean[] projection;
+
+    private String[] materialized;
+
+    LazyFieldList(final int[] bounds, final boolean[] projection) {
+        this.bounds = bounds;
+        this.projection = projection;
+    }
+
+    /**
+     * Returns {@code true} if the given column is part of the projection.
+     */
+    static boolean isProjected(final boolean[] projection, final int index) {
+        return projection == null || index < projection.length && projection[index];
+    }
+
+    @Override
+    public String get(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (!isProjected(projection, index)) {
+            return null;
+        }
+        String[] localMaterialized = materialized;
+        if (localMaterialized == null) {
+            localMaterialized = materialized = new String[size()];
+        }
+        String field = localMaterialized[index];
+        if (field == null) {
+            field = localMaterialized[index] = materialize(index);
+        }
+        return field;
+    }
+
+    @Override
+    public int size() {
+        return bounds.length / 2;
+    }
+
+    /**
+     * Creates the String of a projected field.
+     */
+    abstract String materialize(int index);
+
+    /**
+     * Returns the contents of a field without creating a String if possible.
+     *
+     * @return the contents of the field, {@code null} if it is not projected
+     */
+    CharSequence getCharSequence(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (!isProjected(projection, index)) {
+            return null;
+        }
+        final String[] localMaterialized = materialized;
+        if (localMaterialized != null && localMaterialized[index] != null) {
+            return localMaterialized[index];
+        }
+        return window(index);
+    }
+
+    /**
+     * Returns a window onto the data of a projected field, or its String if there is none.
+     */
+    abstract CharSequence window(int index);
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+/**
+ * Parses numbers straight from a {@link CharSequence} - e.g. a window onto the parse
+ * buffer - without creating a String first. Accepts the same input as
+ * {@link Long#parseLong(String)} (with ASCII digits) and {@link Double#parseDouble(String)}.
+ *
+ * This class is intended for internal use only.
+ */
+final class NumberParser {
+
+    /**
+     * Doubles with up to this many significant digits are exact.
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /**
+     * Powers of ten that are exact doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {
+    }
+
+    static int parseInt(final CharSequence s) {
+        final long value = parseLong(s);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw forInput(s);
+        }
+        return (int) value;
+    }
+
+    static long parseLong(final CharSequence s) {
+        final int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (len > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            i++;
+        }
+        if (i == len) {
+            throw forInput(s);
+        }
+
+        // accumulate negatively, so that Long.MIN_VALUE does not overflow
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multLimit = limit / 10;
+        long result = 0;
+        for (; i < len; i++) {
+            final int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multLimit) {
+                throw forInput(s);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw forInput(s);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses plain decimal numbers with at most 15 significant digits and a small exponent
+     * directly, which is exact because both the digits and the power of ten are exact
+     * doubles; everything else is left to {@link Double#parseDouble(String)}.
+     */
+    static double parseDouble(final CharSequence s) {
+        final int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (len > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        boolean point = false;
+        for (; i < len; i++) {
+            final char c = s.charAt(i);
+            if (c == '.' && !point) {
+                point = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+            anyDigit = true;
+            if (mantissa != 0 || c != '0') {
+                if (++digits > MAX_EXACT_DIGITS) {
+                    return Double.parseDouble(s.toString());
+                }
+                mantissa = mantissa * 10 + (c - '0');
+            }
+            if (point) {
+                scale--;
+            }
+        }
+        if (!anyDigit) {
+            return Double.parseDouble(s.toString());
+        }
+
+        if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < len && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            final int exponentStart = i;
+            int exponent = 0;
+            for (; i < len && exponent < 1000; i++) {
+                final char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                exponent = exponent * 10 + (c - '0');
+            }
+            if (i == exponentStart) {
+                return Double.parseDouble(s.toString());
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i < len) {
+            return Double.parseDouble(s.toString());
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        final double value;
+        if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[scale];
+        } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            return Double.parseDouble(s.toString());
+        }
+        return negative ? -value : value;
+    }
+
+    private static NumberFormatException forInput(final CharSequence s) {
+        return new NumberFormatException("For input string: \"" + s + "\"");
+    }
+
+}
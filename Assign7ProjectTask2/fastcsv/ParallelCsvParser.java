@@ -0,0 +1,382 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parses a CSV file in chunks on several threads.
+ *
+ * A sequential pass over the raw bytes (which tracks quoting exactly like {@link RowReader},
+ * so quoted fields may contain line breaks) splits the file into chunks of about
+ * {@code chunkSize} bytes that start and end on record boundaries. The chunks are then
+ * memory-mapped and parsed by worker threads with a {@link ByteRowReader}. This is only
+ * safe for charsets in which the separator, text delimiter, CR and LF are single bytes
+ * that never occur inside a multi-byte character - US-ASCII, ISO-8859-1 and UTF-8. Other
+ * charsets are parsed sequentially.
+ *
+ * This class is intended for internal use only.
+ */
+final class ParallelCsvParser {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+    private static final int SCAN_BUFFER_SIZE = 65536;
+
+    private final char fieldSeparator;
+    private final char textDelimiter;
+    private final boolean containsHeader;
+    private final boolean skipEmptyRows;
+    private final boolean errorOnDifferentFieldCount;
+    private final String[] projectedNames;
+    private final int[] projectedColumns;
+    private final int parallelism;
+    private final int chunkSize;
+
+    ParallelCsvParser(final char fieldSeparator, final char textDelimiter,
+                      final boolean containsHeader, final boolean skipEmptyRows,
+                      final boolean errorOnDifferentFieldCount, final String[] projectedNames,
+                      final int[] projectedColumns, final int parallelism, final int chunkSize) {
+        this.fieldSeparator = fieldSeparator;
+        this.textDelimiter = textDelimiter;
+        this.containsHeader = containsHeader;
+        this.skipEmptyRows = skipEmptyRows;
+        this.errorOnDifferentFieldCount = errorOnDifferentFieldCount;
+        this.projectedNames = projectedNames;
+        this.projectedColumns = projectedColumns;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns {@code true} if files in the given charset can be split at byte offsets.
+     */
+    boolean canSplit(final Charset charset) {
+        return ByteRowReader.supports(charset, fieldSeparator, textDelimiter);
+    }
+
+    void parse(final Path path, final Charset charset, final boolean ordered,
+               final RowCallback callback) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final Scanner scanner = new Scanner(channel);
+            List<String> header = null;
+            long start = 0;
+            // the scanner only passes over blank lines, but a record such as "" parses to an
+            // empty row too, which CsvParser skips - so the header is looked for record by
+            // record until one yields it
+            while (containsHeader && header == null) {
+                if (start >= scanner.size) {
+                    // no records at all
+                    return;
+                }
+                final long end = scanner.nextRecordEnd(skipEmptyRows);
+                header = parseHeader(channel, charset, start, end);
+                start = end;
+            }
+            final List<Chunk> chunks = new ArrayList<>();
+            long linesBefore = scanner.lines;
+            while (start < scanner.size) {
+                final long end;
+                if (start + chunkSize >= scanner.size) {
+                    end = scanner.size;
+                } else {
+                    scanner.skipTo(start + chunkSize);
+                    end = scanner.nextRecordEnd(false);
+                }
+                chunks.add(new Chunk(start, end, linesBefore));
+                linesBefore = scanner.lines;
+                start = end;
+            }
+
+            final ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+                final Thread thread = new Thread(r, "fastcsv-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                if (ordered) {
+                    deliverInOrder(pool, channel, charset, header, chunks, callback);
+                } else {
+                    final List<Future<List<CsvRow>>> futures = new ArrayList<>(chunks.size());
+                    for (final Chunk chunk : chunks) {
+                        futures.add(pool.submit(
+                            newTask(channel, charset, header, chunk, callback)));
+                    }
+                    for (final Future<List<CsvRow>> future : futures) {
+                        await(future);
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Keeps up to twice as many chunks in flight as there are threads and hands their
+     * rows to the callback on the calling thread, in file order.
+     */
+    private void deliverInOrder(final ExecutorService pool, final FileChannel channel,
+                                final Charset charset, final List<String> header,
+                                final List<Chunk> chunks, final RowCallback callback)
+        throws IOException {
+
+        final Deque<Future<List<CsvRow>>> window = new ArrayDeque<>();
+        int next = 0;
+        while (next < chunks.size() && window.size() < parallelism * 2) {
+            window.add(pool.submit(newTask(channel, charset, header, chunks.get(next++), null)));
+        }
+        while (!window.isEmpty()) {
+            final List<CsvRow> rows = await(window.poll());
+            if (next < chunks.size()) {
+                window.add(pool.submit(
+                    newTask(channel, charset, header, chunks.get(next++), null)));
+            }
+            for (final CsvRow row : rows) {
+                callback.handleRow(row);
+            }
+        }
+    }
+
+    /**
+     * Returns a task that parses one chunk and either hands every row to the callback
+     * or, if the callback is {@code null}, returns the rows.
+     */
+    private Callable<List<CsvRow>> newTask(final FileChannel channel, final Charset charset,
+                                           final List<String> header, final Chunk chunk,
+                                           final RowCallback callback) {
+        return () -> {
+            final List<CsvRow> rows = callback == null ? new ArrayList<>() : null;
+            try (CsvParser parser = new CsvParser(
+                new ByteRowReader(map(channel, chunk.start, chunk.end), charset, fieldSeparator,
+                    textDelimiter),
+                header, chunk.linesBefore, skipEmptyRows, errorOnDifferentFieldCount)) {
+
+                if (projectedNames != null || projectedColumns != null) {
+                    parser.setColumnProjection(projectedNames, projectedColumns);
+                }
+
+                CsvRow row;
+                while ((row = parser.nextRow()) != null) {
+                    if (callback == null) {
+                        rows.add(row);
+                    } else {
+                        callback.handleRow(row);
+                    }
+                }
+            }
+            return rows;
+        };
+    }
+
+    /**
+     * Parses the header from the records between the given offsets.
+     *
+     * @return the header, or {@code null} if these records only hold skipped empty rows
+     */
+    private List<String> parseHeader(final FileChannel channel, final Charset charset,
+                                     final long start, final long end) throws IOException {
+        try (CsvParser parser = new CsvParser(
+            new ByteRowReader(map(channel, start, end), charset, fieldSeparator, textDelimiter),
+            true, skipEmptyRows, errorOnDifferentFieldCount)) {
+
+            parser.nextRow();
+            try {
+                return parser.getHeader();
+            } catch (final IllegalStateException e) {
+                return null;
+            }
+        }
+    }
+
+    private static ByteBuffer map(final FileChannel channel, final long start, final long end)
+        throws IOException {
+
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Record at offset " + start + " is longer than 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    private static <V> V await(final Future<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A byte range of the file that starts at the beginning of a record.
+     */
+    private static final class Chunk {
+
+        final long start;
+        final long end;
+        final long linesBefore;
+
+        Chunk(final long start, final long end, final long linesBefore) {
+            this.start = start;
+            this.end = end;
+            this.linesBefore = linesBefore;
+        }
+
+    }
+
+    /**
+     * Walks the raw bytes of the file once, with the same quoting rules as
+     * {@link RowReader} but without building any fields.
+     */
+    private final class Scanner {
+
+        private static final int FIELD_MODE_RESET = 0;
+        private static final int FIELD_MODE_QUOTED = 1;
+        private static final int FIELD_MODE_NON_QUOTED = 2;
+
+        final long size;
+        final FileChannel channel;
+        final ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long bufStart;
+        long lines;
+        int prev = -1;
+        private int fieldMode = FIELD_MODE_RESET;
+        private boolean quoteOn;
+        private boolean recordHasContent;
+
+        Scanner(final FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            buf.limit(0);
+        }
+
+        private int next() throws IOException {
+            if (!buf.hasRemaining()) {
+                bufStart += buf.limit();
+                buf.clear();
+                while (buf.position() == 0) {
+                    if (channel.read(buf, bufStart) < 0) {
+                        buf.flip();
+                        return -1;
+                    }
+                }
+                buf.flip();
+            }
+            return buf.get() & 0xFF;
+        }
+
+        private long position() {
+            return bufStart + buf.position();
+        }
+
+        /**
+         * Advances to the given offset (which must be at or after the current
+         * position), keeping track of quotes and line breaks.
+         */
+        void skipTo(final long offset) throws IOException {
+            scan(offset, false);
+        }
+
+        /**
+         * Advances past the next record terminator and returns its offset - or the file
+         * size if there is none. With {@code nonEmpty}, empty records are passed over.
+         */
+        long nextRecordEnd(final boolean nonEmpty) throws IOException {
+            return scan(Long.MAX_VALUE, nonEmpty);
+        }
+
+        private long scan(final long limit, final boolean nonEmpty) throws IOException {
+            while (position() < limit) {
+                final int c = next();
+                if (c < 0) {
+                    return size;
+                }
+                final int p = prev;
+                prev = c;
+                if (quoteOn) {
+                    if (c == textDelimiter) {
+                        quoteOn = false;
+                    } else if (c == CR || c == LF && p != CR) {
+                        lines++;
+                    }
+                } else if (c == fieldSeparator) {
+                    fieldMode = FIELD_MODE_RESET;
+                    recordHasContent = true;
+                } else if (c == textDelimiter && fieldMode != FIELD_MODE_NON_QUOTED) {
+                    fieldMode = FIELD_MODE_QUOTED;
+                    quoteOn = true;
+                    recordHasContent = true;
+                } else if (c == CR || c == LF && p != CR) {
+                    lines++;
+                    fieldMode = FIELD_MODE_RESET;
+                    final boolean hadContent = recordHasContent;
+                    recordHasContent = false;
+                    if (limit == Long.MAX_VALUE && (hadContent || !nonEmpty)) {
+                        if (c == CR) {
+                            // a record ending with CRLF ends after the LF
+                            final int following = next();
+                            if (following == LF) {
+                                prev = LF;
+                            } else if (following >= 0) {
+                                buf.position(buf.position() - 1);
+                            }
+                        }
+                        return position();
+                    }
+                } else if (c != LF) {
+                    if (fieldMode == FIELD_MODE_RESET) {
+                        fieldMode = FIELD_MODE_NON_QUOTED;
+                    }
+                    recordHasContent = true;
+                }
+            }
+            return position();
+        }
+
+    }
+
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses a gzip file, decompressing the members of a multi-member file in parallel.
+ *
+ * The file is split into segments of about {@code segmentSize} compressed bytes, each of
+ * which ends where a byte sequence that looks like a gzip member header starts. Segments
+ * are decompressed by worker threads and read in file order. A segment only counts if it
+ * decompresses to complete members with matching CRC and size that end exactly at its end,
+ * so a header-like sequence inside compressed data is detected; from the start of the first
+ * segment that fails, and for files in which no further member is found, the rest of the
+ * file is decompressed sequentially by a {@link GZIPInputStream}.
+ *
+ * This class is intended for internal use only.
+ */
+final class ParallelGzipInputStream extends InputStream {
+
+    private static final int ID1 = 0x1f;
+    private static final int ID2 = 0x8b;
+    private static final int CM_DEFLATE = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int FRESERVED = 0xe0;
+    private static final int HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+
+    private static final int SCAN_BUFFER_SIZE = 65536;
+    private static final int STREAM_BUFFER_SIZE = 65536;
+    private static final int MAX_SEGMENT_OUTPUT = Integer.MAX_VALUE - 8;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int parallelism;
+    private final int segmentSize;
+    private final long maxScan;
+    private final ExecutorService pool;
+    private final Deque<Segment> window = new ArrayDeque<>();
+
+    /** Start of the part of the file that is not yet split into segments. */
+    private long next;
+    private InputStream sequential;
+    private byte[] current;
+    private int pos;
+    private int limit;
+
+    ParallelGzipInputStream(final Path path, final int parallelism, final int segmentSize)
+        throws IOException {
+
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.parallelism = parallelism;
+        this.segmentSize = segmentSize;
+        this.maxScan = Math.max(segmentSize, 8L * 1024 * 1024);
+        if (parallelism > 1) {
+            pool = Executors.newFixedThreadPool(parallelism, r -> {
+                final Thread thread = new Thread(r, "fastcsv-gzip");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fillWindow();
+        } else {
+            pool = null;
+            openSequential(0);
+        }
+    }
+
+    /**
+     * Returns true if the file starts with the gzip magic bytes.
+     */
+    static boolean isGzip(final Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer magic = ByteBuffer.allocate(2);
+            while (magic.hasRemaining() && ch.read(magic) >= 0) {
+                // read the first two bytes
+            }
+            return magic.position() == 2
+                && (magic.get(0) & 0xff) == ID1 && (magic.get(1) & 0xff) == ID2;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (pos == limit) {
+            if (sequential != null) {
+                return sequential.read(b, off, len);
+            }
+            if (window.isEmpty()) {
+                return -1;
+            }
+            final Segment segment = window.poll();
+            final byte[] data = await(segment.data);
+            if (data == null) {
+                cancelWindow();
+                openSequential(segment.start);
+                continue;
+            }
+            current = data;
+            pos = 0;
+            limit = data.length;
+            fillWindow();
+        }
+        final int n = Math.min(len, limit - pos);
+        System.arraycopy(current, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    /**
+     * Keeps up to twice as many segments in flight as there are threads.
+     */
+    private void fillWindow() throws IOException {
+        while (sequential == null && next < size && window.size() < parallelism * 2) {
+            final long start = next;
+            final long end;
+            if (size - start <= segmentSize) {
+                end = size;
+            } else {
+                end = findMember(start + segmentSize);
+                if (end < 0 || end - start > Integer.MAX_VALUE) {
+                    if (window.isEmpty()) {
+                        openSequential(start);
+                    } else {
+                        // decompress the segments found so far before going sequential
+                        window.add(new Segment(start, null));
+                        next = size;
+                    }
+                    return;
+                }
+            }
+            window.add(new Segment(start, pool.submit(() -> decompress(start, end))));
+            next = end;
+        }
+    }
+
+    /**
+     * Returns the offset of the first member header candidate at or after from, the end of
+     * the file if it is reached first, or -1 if there is no candidate within maxScan bytes.
+     */
+    private long findMember(final long from) throws IOException {
+        final long scanEnd = Math.min(size, from + maxScan);
+        final ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long bufStart = from;
+        while (bufStart < scanEnd) {
+            buf.clear();
+            readFully(buf, bufStart);
+            final int n = buf.position();
+            // a candidate must have a complete header within the buffer
+            final int last = n - HEADER_SIZE;
+            for (int i = 0; i <= last; i++) {
+                if (isHeader(buf, i)) {
+                    return bufStart + i;
+                }
+            }
+            if (bufStart + n >= size) {
+                return size;
+            }
+            bufStart += Math.max(1, last + 1);
+        }
+        return -1;
+    }
+
+    private static boolean isHeader(final ByteBuffer buf, final int i) {
+        if ((buf.get(i) & 0xff) != ID1 || (buf.get(i + 1) & 0xff) != ID2
+            || buf.get(i + 2) != CM_DEFLATE || (buf.get(i + 3) & FRESERVED) != 0) {
+            return false;
+        }
+        final int xfl = buf.get(i + 8) & 0xff;
+        final int os = buf.get(i + 9) & 0xff;
+        return (xfl == 0 || xfl == 2 || xfl == 4) && (os <= 13 || os == 255);
+    }
+
+    /**
+     * Decompresses the members in [start, end). Runs on a worker thread.
+     *
+     * @return the decompressed bytes, or {@code null} if the range is not a sequence of
+     *     complete, valid members.
+     */
+    private byte[] decompress(final long start, final long end) throws IOException {
+        final ByteBuffer in = ByteBuffer.allocate((int) (end - start));
+        readFully(in, start);
+        if (in.hasRemaining()) {
+            return null;
+        }
+        final byte[] input = in.array();
+
+        final Inflater inflater = new Inflater(true);
+        final CRC32 crc = new CRC32();
+        byte[] out = new byte[(int) Math.min(MAX_SEGMENT_OUTPUT, input.length * 4L + 1024)];
+        int outLen = 0;
+        int off = 0;
+        try {
+            while (off < input.length) {
+                off = skipHeader(input, off);
+                if (off < 0) {
+                    return null;
+                }
+                inflater.reset();
+                inflater.setInput(input, off, input.length - off);
+                crc.reset();
+                final int memberStart = outLen;
+                while (!inflater.finished()) {
+                    if (out.length - outLen < STREAM_BUFFER_SIZE) {
+                        if (out.length == MAX_SEGMENT_OUTPUT) {
+                            return null;
+                        }
+                        out = Arrays.copyOf(out,
+                            (int) Math.min(MAX_SEGMENT_OUTPUT, out.length * 2L));
+                    }
+                    final int n = inflater.inflate(out, outLen, out.length - outLen);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        return null;
+                    }
+                    outLen += n;
+                }
+                crc.update(out, memberStart, outLen - memberStart);
+                off = input.length - inflater.getRemaining();
+                if (off + TRAILER_SIZE > input.length
+                    || readInt(input, off) != (int) crc.getValue()
+                    || readInt(input, off + 4) != outLen - memberStart) {
+                    return null;
+                }
+                off += TRAILER_SIZE;
+            }
+        } catch (final DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+        return Arrays.copyOf(out, outLen);
+    }
+
+    /**
+     * Returns the offset of the compressed data of the member starting at off, or -1 if no
+     * valid header starts there.
+     */
+    private static int skipHeader(final byte[] b, final int off) {
+        if (off + HEADER_SIZE > b.length || (b[off] & 0xff) != ID1 || (b[off + 1] & 0xff) != ID2
+            || b[off + 2] != CM_DEFLATE || (b[off + 3] & FRESERVED) != 0) {
+            return -1;
+        }
+        final int flags = b[off + 3];
+        int i = off + HEADER_SIZE;
+        if ((flags & FEXTRA) != 0) {
+            if (i + 2 > b.length) {
+                return -1;
+            }
+            i += 2 + ((b[i] & 0xff) | (b[i + 1] & 0xff) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            while (i < b.length && b[i] != 0) {
+                i++;
+            }
+            i++;
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (i < b.length && b[i] != 0) {
+                i++;
+            }
+            i++;
+        }
+        if ((flags & FHCRC) != 0) {
+            i += 2;
+        }
+        return i <= b.length ? i : -1;
+    }
+
+    private static int readInt(final byte[] b, final int off) {
+        return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16
+            | (b[off + 3] & 0xff) << 24;
+    }
+
+    private void readFully(final ByteBuffer buf, final long position) throws IOException {
+        long p = position;
+        while (buf.hasRemaining()) {
+            final int n = channel.read(buf, p);
+            if (n < 0) {
+                break;
+            }
+            p += n;
+        }
+    }
+
+    private void openSequential(final long start) throws IOException {
+        next = size;
+        channel.position(start);
+        sequential = new GZIPInputStream(new BufferedInputStream(
+            Channels.newInputStream(channel), STREAM_BUFFER_SIZE), STREAM_BUFFER_SIZE);
+    }
+
+    private void cancelWindow() {
+        for (final Segment segment : window) {
+            if (segment.data != null) {
+                // interrupting a worker would close the channel it shares with this stream
+                segment.data.cancel(false);
+            }
+        }
+        window.clear();
+    }
+
+    /**
+     * Returns the decompressed bytes of a segment, or {@code null} if it has to be
+     * decompressed sequentially.
+     */
+    private static byte[] await(final Future<byte[]> future) throws IOException {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decompressing");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        cancelWindow();
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        if (sequential != null) {
+            sequential.close();
+        }
+        channel.close();
+    }
+
+    /**
+     * A range of the file starting at a member header, with its decompressed bytes.
+     */
+    private static final class Segment {
+
+        final long start;
+        final Future<byte[]> data;
+
+        Segment(final long start, final Future<byte[]> data) {
+            this.start = start;
+            this.data = data;
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the memory-mapped and the parallel parser return the same rows as the
+ * {@link RowReader}, which is the reference, for inputs that have broken one of them before.
+ *
+ * Run with {@code java fastcsv.ParserCheck}; it prints every difference and exits with
+ * status 1 if there is one.
+ *
+ * This class is intended for internal use only.
+ */
+final class ParserCheck {
+
+    /** Inputs that are parsed with a header. */
+    private static final String[] WITH_HEADER = {
+        "\"\"\r\n,\r\r\na,b\n",
+        "\"\"\n\"\"\nx,y\n1,2\n",
+        "\n\n\"\"\r\nx\n1\n",
+        "\"\"\n",
+        "",
+    };
+
+    /** Malformed quoted fields with non-ASCII chars, which are parsed without a header. */
+    private static final String[] WITHOUT_HEADER = {
+        "\",\"\u00fc\",\"ab,\"a\"\n",
+        "\",\"\u00fc\",\"\u65e5\u672c,\"a\"\n",
+        "\"x\"\u00fc\"y\",z\n",
+        "\"\u00e9\"\"\"\"a\"b\"\",\"\u00e9\"c\"\"\n1,2\n",
+        "\"\u65e5\"\u672c\"\"\"\"\"\"x\"\"y\u00fc\u00fc\u00fc\u00fc,\u00fc\u00fc\u00fc\n",
+        "\"\ud83d\ude00\"a\"\"b\",\"\ud83d\ude00\ud83d\ude00\"\"\"\"\"\"\"\"\n",
+    };
+
+    private ParserCheck() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        int failures = 0;
+        for (final String input : WITH_HEADER) {
+            failures += check(input, true);
+        }
+        for (final String input : WITHOUT_HEADER) {
+            failures += check(input, false);
+        }
+        System.out.println(failures == 0 ? "All parsers agree" : failures + " differences");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parses the input with every parser and prints the ones that differ from the
+     * {@link RowReader}.
+     *
+     * @return the number of parsers that differ
+     */
+    private static int check(final String input, final boolean containsHeader)
+        throws IOException {
+
+        final Path file = Files.createTempFile("parsercheck", ".csv");
+        try {
+            Files.write(file, input.getBytes(StandardCharsets.UTF_8));
+            final CsvReader reader = newReader(containsHeader);
+            final List<List<String>> expected = new ArrayList<>();
+            try (CsvParser parser = reader.parse(new StringReader(input))) {
+                CsvRow row;
+                while ((row = parser.nextRow()) != null) {
+                    expected.add(row.getFields());
+                }
+            }
+
+            reader.setMemoryMapped(true);
+            final List<List<String>> mapped = new ArrayList<>();
+            try (CsvParser parser = reader.parse(file, StandardCharsets.UTF_8)) {
+                CsvRow row;
+                while ((row = parser.nextRow()) != null) {
+                    mapped.add(row.getFields());
+                }
+            }
+
+            // one-byte chunks put a chunk boundary after every record
+            reader.setParallelism(4);
+            reader.setChunkSize(1);
+            final List<List<String>> parallel = new ArrayList<>();
+            reader.parseParallel(file, StandardCharsets.UTF_8, true,
+                row -> parallel.add(row.getFields()));
+
+            return report(input, "memory-mapped", expected, mapped)
+                + report(input, "parallel", expected, parallel);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static CsvReader newReader(final boolean containsHeader) {
+        final CsvReader reader = new CsvReader();
+        reader.setContainsHeader(containsHeader);
+        return reader;
+    }
+
+    private static int report(final String input, final String parser,
+                              final List<List<String>> expected,
+                              final List<List<String>> actual) {
+        if (expected.equals(actual)) {
+            return 0;
+        }
+        System.out.println(parser + " parser differs on " + escape(input) + ": expected "
+            + expected + ", got " + actual);
+        return 1;
+    }
+
+    private static String escape(final String input) {
+        return '"' + input.replace("\\", "\\\\").replace("\"", "\\\"").replace("\r", "\\r")
+            .replace("\n", "\\n") + '"';
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A Reader that reads ahead of its consumer: a background thread fills a fixed set of
+ * large buffers from the source while the parser consumes the one filled before, so that
+ * I/O and parsing overlap. With two buffers this is classic double buffering.
+ *
+ * This class is intended for internal use only.
+ */
+final class ReadAheadReader extends Reader {
+
+    private final Reader source;
+    private final BlockingQueue<char[]> free;
+    private final BlockingQueue<Buffer> filled;
+    private final Thread thread;
+    private volatile boolean closed;
+    private Throwable failure;
+
+    private Buffer current;
+    private int pos;
+    private boolean finished;
+
+    ReadAheadReader(final Reader source, final int bufferCount, final int bufferSize) {
+        this.source = source;
+        free = new ArrayBlockingQueue<>(bufferCount);
+        // one more slot for the end marker
+        filled = new ArrayBlockingQueue<>(bufferCount + 1);
+        for (int i = 0; i < bufferCount; i++) {
+            free.add(new char[bufferSize]);
+        }
+        thread = new Thread(this::fill, "fastcsv-read-ahead");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs on the background thread: fills free buffers completely (or up to the end of the
+     * data) and queues them, followed by an empty buffer to mark the end.
+     */
+    private void fill() {
+        try {
+            while (true) {
+                final char[] buf = free.take();
+                int len = 0;
+                int n = 0;
+                while (len < buf.length && (n = source.read(buf, len, buf.length - len)) >= 0) {
+                    len += n;
+                }
+                if (len > 0) {
+                    filled.put(new Buffer(buf, len));
+                }
+                if (n < 0) {
+                    break;
+                }
+            }
+        } catch (final InterruptedException e) {
+            // closed
+            return;
+        } catch (final IOException | RuntimeException | Error e) {
+            if (closed) {
+                return;
+            }
+            failure = e;
+        }
+        // the end marker is published after failure, so the consumer sees it
+        filled.offer(new Buffer(null, 0));
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (closed) {
+            throw new IOException("Reader closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (current == null || pos == current.len) {
+            if (finished) {
+                return -1;
+            }
+            if (current != null) {
+                free.add(current.chars);
+            }
+            try {
+                current = filled.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+            pos = 0;
+            if (current.chars == null) {
+                current = null;
+                finished = true;
+                rethrowFailure();
+                return -1;
+            }
+        }
+        final int n = Math.min(len, current.len - pos);
+        System.arraycopy(current.chars, pos, cbuf, off, n);
+        pos += n;
+        return n;
+    }
+
+    private void rethrowFailure() throws IOException {
+        final Throwable t = failure;
+        if (t instanceof IOException) {
+            throw new IOException(t.getMessage(), t);
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            thread.interrupt();
+            source.close();
+        }
+    }
+
+    /**
+     * A filled buffer; a buffer without chars marks the end of the data.
+     */
+    private static final class Buffer {
+
+        final char[] chars;
+        final int len;
+
+        Buffer(final char[] chars, final int len) {
+            this.chars = chars;
+            this.len = len;
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Splits CSV data into records (rows) and fields. This is the backend of {@link CsvParser}.
+ *
+ * This interface is intended for internal use only.
+ */
+interface RecordReader extends Closeable {
+
+    /**
+     * Reads the next record, which might be made up of multiple lines.
+     *
+     * @return the number of fields of the record - 0 if the end of data was reached before
+     * any field
+     * @throws IOException if an error occurred while reading data
+     */
+    int readRecord() throws IOException;
+
+    /**
+     * @return the fields of the record last read, as a list that does not change when the
+     * next record is read
+     */
+    List<String> getFields();
+
+    /**
+     * @return the number of lines the record last read was made up of
+     */
+    int getLines();
+
+    /**
+     * @return {@code true} if the record last read consists of a single empty field
+     */
+    boolean isEmptyRecord();
+
+    /**
+     * Restricts the fields of the following records to the given columns. Other fields
+     * are skipped without being copied or decoded and read as {@code null}.
+     *
+     * @param projection {@code projection[i]} tells whether column i is kept - {@code null}
+     * to keep all columns
+     */
+    void setProjection(boolean[] projection);
+
+    /**
+     * @return {@code true} if the end of data was reached
+     */
+    boolean isFinished();
+
+    /**
+     * @return the offset in the file of the first byte after the record last read - -1 if
+     * the data is not read from a file as bytes
+     */
+    long getPosition();
+
+}
@@ -75,6 +75,34 @@ final class ReusableStringBuilder {
         return pos > 0;
     }
 
+    /**
+     * @return the number of characters in the buffer
+     */
+    public int length() {
+        return pos;
+    }
+
+    /**
+     * @return the internal buffer, whose first {@link #length()} characters are the content
+     */
+    public char[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * @return a copy of the characters in the buffer
+     */
+    public char[] toCharArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    /**
+     * Empties the buffer.
+     */
+    public void reset() {
+        pos = 0;
+    }
+
     /**
      * Returns the string representation of the buffer and resets the buffer.
      *
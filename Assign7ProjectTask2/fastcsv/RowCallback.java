@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows of a CSV file parsed by
+ * {@link CsvReader#parseParallel(java.nio.file.Path, java.nio.charset.Charset, boolean,
+ * RowCallback)}.
+ */
+public interface RowCallback {
+
+    /**
+     * Called once per row. When rows are delivered unordered, this method is called
+     * concurrently from several worker threads and must be thread-safe.
+     *
+     * @param row the parsed row - never {@code null}.
+     * @throws IOException to abort parsing.
+     */
+    void handleRow(CsvRow row) throws IOException;
+
+}
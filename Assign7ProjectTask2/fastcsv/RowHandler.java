@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows of a CSV file read by
+ * {@link CsvReader#forEach(java.nio.file.Path, java.nio.charset.Charset, RowHandler)}.
+ */
+public interface RowHandler {
+
+    /**
+     * Called once per row, always with the same view. The view and the field contents it
+     * hands out are only valid until this method returns.
+     *
+     * @param row the current row - never {@code null}.
+     * @throws IOException to abort reading.
+     */
+    void handleRow(CsvRowView row) throws IOException;
+
+}
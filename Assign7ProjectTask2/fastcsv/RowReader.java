@@ -18,12 +18,12 @@
 
 package fastcsv;
 
-import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.Arrays;
+import java.util.List;
 
-final class RowReader implements Closeable {
+final class RowReader implements RecordReader {
 
     private static final char LF = '\n';
     private static final char CR = '\r';
@@ -38,9 +38,9 @@ final class RowReader implements Closeable {
     private final Reader reader;
     private final char fieldSeparator;
     private final char textDelimiter;
+    private final CharScanner scanner;
     private final char[] buf = new char[BUFFER_SIZE];
     private final Line line = new Line(32);
-    private final ReusableStringBuilder currentField = new ReusableStringBuilder(512);
     private int bufPos;
     private int bufLen;
     private int prevChar = -1;
@@ -48,9 +48,53 @@ final class RowReader implements Closeable {
     private boolean finished;
 
     RowReader(final Reader reader, final char fieldSeparator, final char textDelimiter) {
+        this(reader, fieldSeparator, textDelimiter,
+            CharScanner.create(fieldSeparator, textDelimiter));
+    }
+
+    RowReader(final Reader reader, final char fieldSeparator, final char textDelimiter,
+              final CharScanner scanner) {
         this.reader = reader;
         this.fieldSeparator = fieldSeparator;
         this.textDelimiter = textDelimiter;
+        this.scanner = scanner;
+    }
+
+    @Override
+    public int readRecord() throws IOException {
+        return readLine().getFieldCount();
+    }
+
+    @Override
+    public List<String> getFields() {
+        return line.toFieldList();
+    }
+
+    /**
+     * @return the record last read, which is reused for the next record
+     */
+    Line getLine() {
+        return line;
+    }
+
+    @Override
+    public int getLines() {
+        return line.getLines();
+    }
+
+    @Override
+    public long getPosition() {
+        return -1;
+    }
+
+    @Override
+    public boolean isEmptyRecord() {
+        return line.isEmpty();
+    }
+
+    @Override
+    public void setProjection(final boolean[] projection) {
+        line.setProjection(projection);
     }
 
     /*
@@ -59,8 +103,8 @@ final class RowReader implements Closeable {
     Line readLine() throws IOException {
         // get fields local for higher performance
         final Line localLine = line.reset();
-        final ReusableStringBuilder localCurrentField = currentField;
         final char[] localBuf = buf;
+        final CharScanner localScanner = scanner;
         int localBufPos = bufPos;
         int localPrevChar = prevChar;
         int localCopyStart = copyStart;
@@ -74,7 +118,7 @@ final class RowReader implements Closeable {
                 // end of buffer
 
                 if (copyLen > 0) {
-                    localCurrentField.append(localBuf, localCopyStart, copyLen);
+                    localLine.append(localBuf, localCopyStart, copyLen);
                 }
                 bufLen = reader.read(localBuf, 0, localBuf.length);
 
@@ -84,9 +128,9 @@ final class RowReader implements Closeable {
 
                     if (localPrevChar == fieldSeparator
                             || (fieldMode & FIELD_MODE_QUOTED_EMPTY) == FIELD_MODE_QUOTED_EMPTY
-                            || localCurrentField.hasContent()
+                            || localLine.hasContent()
                     ) {
-                        localLine.addField(localCurrentField.toStringAndReset());
+                        localLine.addField();
                     }
 
                     break;
@@ -102,25 +146,34 @@ final class RowReader implements Closeable {
                     // End of quoted text
                     fieldMode &= ~FIELD_MODE_QUOTE_ON;
                     if (copyLen > 0) {
-                        localCurrentField.append(localBuf, localCopyStart, copyLen);
+                        localLine.append(localBuf, localCopyStart, copyLen);
                         copyLen = 0;
                     } else {
                         fieldMode |= FIELD_MODE_QUOTED_EMPTY;
                     }
                     localCopyStart = localBufPos;
                 } else {
-                    if (c == CR || c == LF && prevChar != CR) {
+                    if (c == CR || c == LF && localPrevChar != CR) {
                         lines++;
                     }
                     copyLen++;
+
+                    // skip the following ordinary chars at once
+                    final int next = localScanner.indexOfStructural(localBuf, localBufPos, bufLen);
+                    if (next > localBufPos) {
+                        copyLen += next - localBufPos;
+                        localBufPos = next;
+                        localPrevChar = localBuf[next - 1];
+                        continue;
+                    }
                 }
             } else {
                 if (c == fieldSeparator) {
                     if (copyLen > 0) {
-                        localCurrentField.append(localBuf, localCopyStart, copyLen);
+                        localLine.append(localBuf, localCopyStart, copyLen);
                         copyLen = 0;
                     }
-                    localLine.addField(localCurrentField.toStringAndReset());
+                    localLine.addField();
                     localCopyStart = localBufPos;
                     fieldMode = FIELD_MODE_RESET;
                 } else if (c == textDelimiter && (fieldMode & FIELD_MODE_NON_QUOTED) == 0) {
@@ -135,18 +188,18 @@ final class RowReader implements Closeable {
                     }
                 } else if (c == CR) {
                     if (copyLen > 0) {
-                        localCurrentField.append(localBuf, localCopyStart, copyLen);
+                        localLine.append(localBuf, localCopyStart, copyLen);
                     }
-                    localLine.addField(localCurrentField.toStringAndReset());
+                    localLine.addField();
                     localPrevChar = c;
                     localCopyStart = localBufPos;
                     break;
                 } else if (c == LF) {
                     if (localPrevChar != CR) {
                         if (copyLen > 0) {
-                            localCurrentField.append(localBuf, localCopyStart, copyLen);
+                            localLine.append(localBuf, localCopyStart, copyLen);
                         }
-                        localLine.addField(localCurrentField.toStringAndReset());
+                        localLine.addField();
                         localPrevChar = c;
                         localCopyStart = localBufPos;
                         break;
@@ -157,6 +210,15 @@ final class RowReader implements Closeable {
                     if (fieldMode == FIELD_MODE_RESET) {
                         fieldMode = FIELD_MODE_NON_QUOTED;
                     }
+
+                    // skip the following ordinary chars at once
+                    final int next = localScanner.indexOfStructural(localBuf, localBufPos, bufLen);
+                    if (next > localBufPos) {
+                        copyLen += next - localBufPos;
+                        localBufPos = next;
+                        localPrevChar = localBuf[next - 1];
+                        continue;
+                    }
                 }
             }
 
@@ -177,35 +239,115 @@ final class RowReader implements Closeable {
         reader.close();
     }
 
+    @Override
     public boolean isFinished() {
         return finished;
     }
 
+    /**
+     * The record being read. The chars of all its projected fields are collected in one
+     * buffer; fields outside the projection are only counted.
+     */
     static final class Line {
 
-        private String[] fields;
+        private final ReusableStringBuilder chars = new ReusableStringBuilder(512);
+        private int[] bounds;
+        private boolean[] projection;
         private int linePos;
         private int lines;
+        private int fieldStart;
+        private boolean projected;
+        private boolean fieldHasContent;
+        private boolean firstFieldEmpty;
 
         Line(final int initialCapacity) {
-            fields = new String[initialCapacity];
+            bounds = new int[initialCapacity * 2];
+        }
+
+        void setProjection(final boolean[] projection) {
+            this.projection = projection;
         }
 
         Line reset() {
+            chars.reset();
             linePos = 0;
             lines = 1;
+            fieldStart = 0;
+            projected = LazyFieldList.isProjected(projection, 0);
+            fieldHasContent = false;
             return this;
         }
 
-        void addField(final String field) {
-            if (linePos == fields.length) {
-                fields = Arrays.copyOf(fields, fields.length * 2);
+        /**
+         * Appends chars to the current field.
+         */
+        void append(final char[] src, final int srcPos, final int length) {
+            fieldHasContent = true;
+            if (projected) {
+                chars.append(src, srcPos, length);
+            }
+        }
+
+        /**
+         * @return {@code true} if the current field has content
+         */
+        boolean hasContent() {
+            return fieldHasContent;
+        }
+
+        /**
+         * Ends the current field.
+         */
+        void addField() {
+            if (linePos * 2 == bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            final int end = chars.length();
+            bounds[linePos * 2] = fieldStart;
+            bounds[linePos * 2 + 1] = end;
+            if (linePos == 0) {
+                firstFieldEmpty = !fieldHasContent;
             }
-            fields[linePos++] = field;
+            linePos++;
+            fieldStart = end;
+            projected = LazyFieldList.isProjected(projection, linePos);
+            fieldHasContent = false;
+        }
+
+        /**
+         * @return {@code true} if this record consists of a single empty field
+         */
+        boolean isEmpty() {
+            return linePos == 1 && firstFieldEmpty;
+        }
+
+        int getFieldCount() {
+            return linePos;
+        }
+
+        /**
+         * @return the buffer holding the chars of the projected fields - valid until the
+         * next record is read
+         */
+        char[] getChars() {
+            return chars.getBuffer();
+        }
+
+        int getStart(final int index) {
+            return bounds[index * 2];
+        }
+
+        int getEnd(final int index) {
+            return bounds[index * 2 + 1];
+        }
+
+        boolean isProjected(final int index) {
+            return LazyFieldList.isProjected(projection, index);
         }
 
-        String[] getFields() {
-            return Arrays.copyOf(fields, linePos);
+        CharFieldList toFieldList() {
+            return new CharFieldList(chars.toCharArray(), Arrays.copyOf(bounds, linePos * 2),
+                projection);
         }
 
         int getLines() {
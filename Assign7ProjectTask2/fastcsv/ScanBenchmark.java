@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the throughput of {@link RowReader} with the scalar and the vector
+ * {@link CharScanner} on CSV files - by default every {@code .csv} file in the
+ * {@code datasets} directory. Files are read into memory first, so only parsing is timed.
+ *
+ * Run with {@code java --add-modules jdk.incubator.vector fastcsv.ScanBenchmark [file...]};
+ * without the module, or if {@code incubator/fastcsv/VectorCharScanner.java} was not
+ * compiled, only the scalar scanner is measured.
+ *
+ * This class is intended for internal use only.
+ */
+final class ScanBenchmark {
+
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int ROUNDS = 50;
+
+    private ScanBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final List<File> files = new ArrayList<>();
+        if (args.length > 0) {
+            for (final String arg : args) {
+                files.add(new File(arg));
+            }
+        } else {
+            final File[] datasets = new File("datasets")
+                .listFiles((dir, name) -> name.endsWith(".csv"));
+            if (datasets != null) {
+                Arrays.sort(datasets);
+                files.addAll(Arrays.asList(datasets));
+            }
+        }
+
+        final CharScanner scalar = CharScanner.scalar(',', '"');
+        final CharScanner fastest = CharScanner.create(',', '"');
+        final CharScanner[] scanners = fastest instanceof CharScanner.Scalar
+            ? new CharScanner[] {scalar} : new CharScanner[] {scalar, fastest};
+        if (scanners.length == 1) {
+            System.out.println(
+                "jdk.incubator.vector is not available - measuring the scalar scanner only");
+        }
+
+        for (final File file : files) {
+            final String data = new String(Files.readAllBytes(file.toPath()),
+                StandardCharsets.UTF_8);
+            final double megabytes = file.length() / (1024.0 * 1024.0);
+            for (final CharScanner scanner : scanners) {
+                long fields = 0;
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    fields = parse(data, scanner);
+                }
+                long best = Long.MAX_VALUE;
+                for (int i = 0; i < ROUNDS; i++) {
+                    final long start = System.nanoTime();
+                    parse(data, scanner);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                System.out.printf("%-40s %-18s %10d fields %9.3f ms %9.1f MB/s%n", file.getName(),
+                    scanner.getClass().getSimpleName(), fields, best / 1e6,
+                    megabytes / (best / 1e9));
+            }
+        }
+    }
+
+    /**
+     * Parses all records of data and returns the number of fields.
+     */
+    private static long parse(final String data, final CharScanner scanner) throws IOException {
+        long fields = 0;
+        try (RowReader reader = new RowReader(new StringReader(data), ',', '"', scanner)) {
+            int n;
+            while ((n = reader.readRecord()) > 0) {
+                fields += n;
+            }
+        }
+        return fields;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Oliver Siegmar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Edited by Angelina Li
+ */
+
+package fastcsv;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Finds structural characters with the Vector API: each step loads as many chars as fit in
+ * the preferred vector size (16 with AVX2, 32 with AVX-512) and compares them against all
+ * four structural characters at once.
+ *
+ * Requires the incubating {@code jdk.incubator.vector} module at compile time and at run
+ * time, so it lives outside the default source set and a plain build leaves it out. To
+ * add it, compile it next to the other fastcsv classes from the project directory with
+ * {@code javac --add-modules jdk.incubator.vector -cp . -d .
+ * incubator/fastcsv/VectorCharScanner.java} and run with
+ * {@code --add-modules jdk.incubator.vector}.
+ * {@link CharScanner#create(char, char)} only loads this class by name, if it was compiled
+ * and the module is present.
+ *
+ * This class is intended for internal use only.
+ */
+final class VectorCharScanner extends CharScanner {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    private final short separator;
+    private final short delimiter;
+
+    VectorCharScanner(final char fieldSeparator, final char textDelimiter) {
+        super(fieldSeparator, textDelimiter);
+        this.separator = (short) fieldSeparator;
+        this.delimiter = (short) textDelimiter;
+    }
+
+    @Override
+    int indexOfStructural(final char[] buf, final int from, final int to) {
+        int i = from;
+        final int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            final ShortVector v = ShortVector.fromCharArray(SPECIES, buf, i);
+            final VectorMask<Short> m = v.eq(separator).or(v.eq(delimiter))
+                .or(v.eq((short) CR)).or(v.eq((short) LF));
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        for (; i < to; i++) {
+            final char c = buf[i];
+            if (c == fieldSeparator || c == textDelimiter || c == CR || c == LF) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+}